@@ -5,8 +5,6 @@ import static java.nio.file.Files.walk;
 import static java.util.stream.Collectors.toList;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -17,8 +15,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -27,11 +30,15 @@ import org.apache.commons.lang3.SystemUtils;
 
 import com.github.swissquote.carnotzet.core.maven.CarnotzetModuleCoordinates;
 import com.github.swissquote.carnotzet.core.maven.MavenDependencyResolver;
+import com.github.swissquote.carnotzet.core.maven.ResolutionCache;
 import com.github.swissquote.carnotzet.core.maven.ResourcesManager;
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -52,7 +59,17 @@ public class Carnotzet {
 	@Getter
 	private final Pattern classifierIncludePattern;
 
-	private List<CarnotzetModule> modules;
+	/**
+	 * the resolved modules, set once the resolution is complete
+	 */
+	private volatile List<CarnotzetModule> modules;
+
+	/**
+	 * the modules being resolved, guarded by "this". Extensions see this list when they call back getModules()
+	 */
+	private List<CarnotzetModule> resolvingModules;
+
+	private final AtomicReference<CompletableFuture<List<CarnotzetModule>>> modulesFuture = new AtomicReference<>();
 
 	private final MavenDependencyResolver resolver;
 
@@ -64,6 +81,19 @@ public class Carnotzet {
 
 	private final Boolean failOnDependencyCycle;
 
+	private final Map<String, ImageNameTemplate> imageNameTemplates = new ConcurrentHashMap<>();
+
+	private volatile ModuleIndex moduleIndex;
+
+	/**
+	 * Invoked with each module as soon as its resources are extracted, before the resources of all the modules are resolved.<br>
+	 * The image name of the module is predicted from its own properties : other modules may still override it, the final
+	 * image names are only known once getModules() returns. The listener may be invoked concurrently.
+	 */
+	@Getter
+	@Setter
+	private volatile Consumer<CarnotzetModule> predictedImageListener;
+
 	public Carnotzet(CarnotzetConfig config) {
 		log.debug("Creating new carnotzet with config [{}]", config);
 		this.config = config;
@@ -90,6 +120,10 @@ public class Carnotzet {
 			resourcesPath = Paths.get("/tmp/carnotzet_" + System.nanoTime());
 		}
 		this.resourceManager = new ResourcesManager(resourcesPath, config.getTopLevelModuleResourcesPath());
+		this.resourceManager.setIncrementalExtraction(Boolean.TRUE.equals(config.getIncrementalResourcesExtraction()));
+		if (config.getResourcesExtractionParallelism() != null) {
+			this.resourceManager.setExtractionParallelism(config.getResourcesExtractionParallelism());
+		}
 
 		if (config.getDefaultDockerRegistry() != null) {
 			this.defaultContainerRegistry = config.getDefaultDockerRegistry();
@@ -102,6 +136,9 @@ public class Carnotzet {
 		} else {
 			this.propFileNames = CarnotzetConfig.DEFAULT_PROP_FILE_NAMES;
 		}
+		this.resourceManager.setPropFileNames(propFileNames);
+		this.resourceManager.setSelectiveExtraction(Boolean.TRUE.equals(config.getSelectiveResourcesExtraction()));
+		this.resourceManager.setLinkResources(Boolean.TRUE.equals(config.getLinkResources()));
 
 		if (config.getFailOnDependencyCycle() != null) {
 			this.failOnDependencyCycle = config.getFailOnDependencyCycle();
@@ -109,31 +146,95 @@ public class Carnotzet {
 			this.failOnDependencyCycle = true;
 		}
 
-		resolver = new MavenDependencyResolver(this::getModuleName, resourcesPath.resolve("maven"));
+		ResolutionCache resolutionCache = null;
+		if (Boolean.TRUE.equals(config.getUseResolutionCache())) {
+			resolutionCache = new ResolutionCache(moduleFilterPattern.pattern() + "|" + classifierIncludePattern.pattern());
+		}
+		resolver = new MavenDependencyResolver(this::getModuleName, resourcesPath.resolve("maven"), resolutionCache,
+				Boolean.TRUE.equals(config.getForkMavenResolution()), config.getDependencyGraphProvider());
 
 	}
 
+	/**
+	 * Resolves the modules of the environment on the first call. Concurrent callers wait for the resolution in progress and
+	 * share its result.
+	 */
 	public List<CarnotzetModule> getModules() {
-		if (modules == null) {
-			modules = resolver.resolve(config.getTopLevelModuleId(), failOnDependencyCycle);
-			if (SystemUtils.IS_OS_LINUX || !getResourcesFolder().resolve("expanded-jars").toFile().exists()) {
-				resourceManager.extractResources(modules);
-				modules = computeServiceIds(modules);
-				resourceManager.resolveResources(modules);
+		List<CarnotzetModule> result = modules;
+		if (result != null) {
+			return result;
+		}
+		synchronized (this) {
+			if (modules != null) {
+				return modules;
+			}
+			if (resolvingModules != null) {
+				// called back by an extension during the resolution
+				return resolvingModules;
+			}
+			try {
+				resolveModules();
+				modules = resolvingModules;
+			}
+			finally {
+				resolvingModules = null;
 			}
-			log.debug("configuring modules");
-			modules = configureModules(modules);
+			return modules;
+		}
+	}
 
-			if (config.getExtensions() != null) {
-				for (CarnotzetExtension feature : config.getExtensions()) {
-					log.debug("Extension [{}] enabled", feature.getClass().getSimpleName());
-					modules = feature.apply(this);
-				}
+	/**
+	 * Resolves the modules in a background thread, or returns the resolved modules if they are already available.
+	 * Concurrent calls share the same resolution.
+	 */
+	public CompletableFuture<List<CarnotzetModule>> getModulesAsync() {
+		List<CarnotzetModule> result = modules;
+		if (result != null) {
+			return CompletableFuture.completedFuture(result);
+		}
+		CompletableFuture<List<CarnotzetModule>> future = modulesFuture.get();
+		if (future != null) {
+			return future;
+		}
+		CompletableFuture<List<CarnotzetModule>> resolution = new CompletableFuture<>();
+		if (!modulesFuture.compareAndSet(null, resolution)) {
+			return modulesFuture.get();
+		}
+		ExecutorService executor = Executors.newSingleThreadExecutor(
+				new ThreadFactoryBuilder().setNameFormat("carnotzet-modules-%d").setDaemon(true).build());
+		executor.execute(() -> {
+			try {
+				resolution.complete(getModules());
+			}
+			catch (RuntimeException | Error e) {
+				// the next call will try again
+				modulesFuture.compareAndSet(resolution, null);
+				resolution.completeExceptionally(e);
+			}
+		});
+		executor.shutdown();
+		return resolution;
+	}
+
+	private void resolveModules() {
+		resolvingModules = resolver.resolve(config.getTopLevelModuleId(), failOnDependencyCycle);
+		if (SystemUtils.IS_OS_LINUX || !getResourcesFolder().resolve("expanded-jars").toFile().exists()) {
+			resourceManager.extractResources(resolvingModules, getExtractedModuleListener(resolvingModules));
+			resolvingModules = computeServiceIds(resolvingModules);
+			resourceManager.resolveResources(resolvingModules);
+		}
+		log.debug("configuring modules");
+		resolvingModules = configureModules(resolvingModules);
+
+		if (config.getExtensions() != null) {
+			for (CarnotzetExtension feature : config.getExtensions()) {
+				log.debug("Extension [{}] enabled", feature.getClass().getSimpleName());
+				resolvingModules = feature.apply(this);
 			}
-			assertNoDuplicateArtifactId(modules);
-			modules = selectModulesForUniqueServiceId(modules);
 		}
-		return modules;
+		assertNoDuplicateArtifactId(resolvingModules);
+		resolvingModules = selectModulesForUniqueServiceId(resolvingModules);
+		getModuleIndex(resolvingModules);
 	}
 
 	private List<CarnotzetModule> computeServiceIds(List<CarnotzetModule> modules) {
@@ -180,11 +281,23 @@ public class Carnotzet {
 	}
 
 	public Optional<CarnotzetModule> getModule(@NonNull String moduleName) {
-		return getModules().stream().filter(module -> moduleName.equals(module.getName())).findFirst();
+		return Optional.ofNullable(getModuleIndex(getModules()).getByName().get(moduleName));
 	}
 
 	public Optional<CarnotzetModule> getModuleByServiceId(@NonNull String serviceId) {
-		return getModules().stream().filter(module -> serviceId.equals(module.getServiceId())).findFirst();
+		return Optional.ofNullable(getModuleIndex(getModules()).getByServiceId().get(serviceId));
+	}
+
+	/**
+	 * Returns the index of a list of modules, the index is only built again when the list of modules changes.
+	 */
+	private ModuleIndex getModuleIndex(List<CarnotzetModule> indexedModules) {
+		ModuleIndex index = moduleIndex;
+		if (index == null || index.getModules() != indexedModules) {
+			index = ModuleIndex.of(indexedModules);
+			moduleIndex = index;
+		}
+		return index;
 	}
 
 	private List<CarnotzetModule> configureModules(List<CarnotzetModule> modules) {
@@ -215,47 +328,59 @@ public class Carnotzet {
 	private Map<String, String> readPropertiesFiles(Path moduleFilesPath) {
 		Map<String, String> result = new HashMap<>();
 		for (String fileName : propFileNames) {
-			Path filePath = moduleFilesPath.resolve(fileName);
-			if (filePath.toFile().exists()) {
-				Properties props = new Properties();
-				try (InputStream in = Files.newInputStream(filePath)) {
-					props.load(in);
-					result.putAll((Map) props);
-				}
-				catch (IOException e) {
-					throw new UncheckedIOException(e);
-				}
-			}
+			result.putAll(resourceManager.getPropertiesCache().get(moduleFilesPath.resolve(fileName)));
 		}
 		return result;
 	}
 
+	private Consumer<CarnotzetModule> getExtractedModuleListener(List<CarnotzetModule> extractedModules) {
+		Consumer<CarnotzetModule> listener = predictedImageListener;
+		if (listener == null) {
+			return null;
+		}
+		// extraction threads cannot call getModules() while the resolution is in progress
+		ModuleIndex index = ModuleIndex.of(extractedModules);
+		return module -> {
+			CarnotzetModule predicted = predictImage(computeServiceId(module), index);
+			if (predicted.getImageName() != null) {
+				listener.accept(predicted);
+			}
+		};
+	}
+
+	private CarnotzetModule predictImage(CarnotzetModule module, ModuleIndex index) {
+		Map<String, String> ownProperties = readPropertiesFiles(resourceManager.getOwnModuleResourcesPath(module));
+		String imageName;
+		try {
+			imageName = computeImageName(module, ownProperties, index);
+		}
+		catch (CarnotzetDefinitionException e) {
+			log.debug("Could not predict the image of module [{}] : {}", module.getName(), e.getMessage());
+			imageName = null;
+		}
+		return module.toBuilder().properties(ownProperties).imageName(imageName).build();
+	}
+
+	/**
+	 * Computes the image of a module from its docker.image property, which may contain the following placeholders :<br>
+	 * ${my-module.version} : the version of a module of the environment<br>
+	 * ${service.id} : the service id of the module<br>
+	 * ${docker.registry} : the default docker registry<br>
+	 * ${some.property} : any other property of the module
+	 */
 	public String computeImageName(CarnotzetModule module, Map<String, String> properties) {
+		return computeImageName(module, properties, null);
+	}
+
+	/**
+	 * @param index the modules used to resolve ${my-module.version} placeholders, defaults to the modules of the environment
+	 */
+	private String computeImageName(CarnotzetModule module, Map<String, String> properties, ModuleIndex index) {
 		String imageName = defaultContainerRegistry + "/" + module.getServiceId() + ":" + module.getId().getVersion();
 		// Allow custom image through configuration
 		if (properties.containsKey("docker.image")) {
-			imageName = properties.get("docker.image");
-			// imageName might contain <module>.version which requires substitution
-			Pattern pattern = Pattern.compile("(\\$\\{(\\S+)\\.version\\})");
-			Matcher matcher = pattern.matcher(imageName);
-			if (matcher.find()) {
-				// we have identified myModule
-				String myModule = matcher.group(2);
-				// let's try to find myModule in modules and get its version
-				String myModuleVersion = modules.stream()
-						.filter(m -> m.getName().equals(myModule))
-						.map(m -> m.getId().getVersion())
-						.findFirst()
-						.orElse("");
-				if (Strings.isNullOrEmpty(myModuleVersion)) {
-					// complain nicely with a list of modules
-					String modulesList = modules.stream()
-							.map(CarnotzetModule::getName)
-							.collect(Collectors.joining(", "));
-					throw new CarnotzetDefinitionException("Module " + myModule + " wasn't found in modules: " + modulesList);
-				}
-				imageName = matcher.replaceFirst(myModuleVersion);
-			}
+			ImageNameTemplate template = imageNameTemplates.computeIfAbsent(properties.get("docker.image"), ImageNameTemplate::parse);
+			imageName = template.render(placeholder -> getPlaceholderValue(placeholder, module, properties, index));
 		}
 		// Allow configuration based disabling of docker container (config only module)
 		if ("none".equals(imageName)) {
@@ -264,6 +389,36 @@ public class Carnotzet {
 		return imageName;
 	}
 
+	private String getPlaceholderValue(String placeholder, CarnotzetModule module, Map<String, String> properties,
+			ModuleIndex index) {
+		if ("service.id".equals(placeholder)) {
+			return module.getServiceId();
+		}
+		if ("docker.registry".equals(placeholder)) {
+			return defaultContainerRegistry;
+		}
+		if (placeholder.endsWith(".version")) {
+			String myModule = placeholder.substring(0, placeholder.length() - ".version".length());
+			ModuleIndex versions = index != null ? index : getModuleIndex(getModules());
+			CarnotzetModule versioned = versions.getByName().get(myModule);
+			String myModuleVersion = versioned == null ? null : versioned.getId().getVersion();
+			if (!Strings.isNullOrEmpty(myModuleVersion)) {
+				return myModuleVersion;
+			}
+			if (!properties.containsKey(placeholder)) {
+				// complain nicely with a list of modules
+				String modulesList = versions.getModules().stream()
+						.map(CarnotzetModule::getName)
+						.collect(Collectors.joining(", "));
+				throw new CarnotzetDefinitionException("Module " + myModule + " wasn't found in modules: " + modulesList);
+			}
+		}
+		if (properties.containsKey(placeholder)) {
+			return properties.get(placeholder);
+		}
+		throw new CarnotzetDefinitionException("Unknown placeholder ${" + placeholder + "} in docker.image of module " + module.getName());
+	}
+
 	public Path getModuleResourcesPath(CarnotzetModule module) {
 		return resourceManager.getResolvedModuleResourcesPath(module);
 	}
@@ -335,4 +490,27 @@ public class Carnotzet {
 		return null;
 	}
 
+	/**
+	 * Modules by name and by service id. When several modules have the same name or service id, the first one in the list
+	 * is indexed.
+	 */
+	@Value
+	private static class ModuleIndex {
+		private final List<CarnotzetModule> modules;
+		private final Map<String, CarnotzetModule> byName;
+		private final Map<String, CarnotzetModule> byServiceId;
+
+		static ModuleIndex of(List<CarnotzetModule> modules) {
+			Map<String, CarnotzetModule> byName = new HashMap<>();
+			Map<String, CarnotzetModule> byServiceId = new HashMap<>();
+			for (CarnotzetModule module : modules) {
+				byName.putIfAbsent(module.getName(), module);
+				if (module.getServiceId() != null) {
+					byServiceId.putIfAbsent(module.getServiceId(), module);
+				}
+			}
+			return new ModuleIndex(modules, Collections.unmodifiableMap(byName), Collections.unmodifiableMap(byServiceId));
+		}
+	}
+
 }
@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.List;
 
 import com.github.swissquote.carnotzet.core.maven.CarnotzetModuleCoordinates;
+import com.github.swissquote.carnotzet.core.maven.DependencyGraphProvider;
 
 import lombok.Builder;
 import lombok.NonNull;
@@ -75,4 +76,58 @@ public class CarnotzetConfig {
 	 */
 	private final Boolean failOnDependencyCycle;
 
+	/**
+	 * Indicates if the result of the maven dependency resolution should be cached in ~/.carnotzet/resolution-cache<br>
+	 * The cache is invalidated when the top level pom.xml or any of the pom and jar files involved in the resolution changes.<br>
+	 * defaults to false.
+	 */
+	private final Boolean useResolutionCache;
+
+	/**
+	 * Indicates if the dependency tree should be computed by invoking maven in a separate process (mvn dependency:tree).<br>
+	 * By default, the dependency tree is resolved in-process from the local maven repository, maven is only invoked
+	 * when some artifacts must be downloaded.<br>
+	 * defaults to false.
+	 */
+	private final Boolean forkMavenResolution;
+
+	/**
+	 * Provides the dependency tree of the top level module when it is already known, for example by the maven build
+	 * running carnotzet.<br>
+	 * defaults to null, the dependencies are then resolved by carnotzet.
+	 */
+	private final DependencyGraphProvider dependencyGraphProvider;
+
+	/**
+	 * Indicates if the resources of a module should only be extracted again when its jar file changed
+	 * (or the top level module resources folder for the top level module).<br>
+	 * defaults to false, all module jars are extracted every time.
+	 */
+	private final Boolean incrementalResourcesExtraction;
+
+	/**
+	 * Maximum number of module jars extracted concurrently.<br>
+	 * defaults to 1
+	 */
+	private final Integer resourcesExtractionParallelism;
+
+	/**
+	 * Indicates if only the resources used by carnotzet should be extracted from module jars : properties files,
+	 * merge files, files, env and welcome folders, at the root of the jar or in a folder named after another service.<br>
+	 * Use it when module jars contain other resources or classes.
+	 * Extensions that read other resources from the module folders must not be used with this option.<br>
+	 * defaults to false
+	 */
+	private final Boolean selectiveResourcesExtraction;
+
+	/**
+	 * Indicates if the resolved resources of the modules should be hard links to the extracted files instead of copies,
+	 * when the file system supports it. Files modified by a FileMerger are always copied.<br>
+	 * Containers must not modify the files mounted from the module resources when this option is enabled,
+	 * the extracted files would be modified too. All module jars are extracted every time when this option is enabled,
+	 * so that modified files are not reused.<br>
+	 * defaults to false
+	 */
+	private final Boolean linkResources;
+
 }
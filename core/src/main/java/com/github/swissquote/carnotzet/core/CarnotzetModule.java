@@ -32,6 +32,8 @@ public class CarnotzetModule {
 	private final String dockerCmd;
 	private final Set<String> dockerEnvFiles;
 	private final Path jarPath;
+	// names of the modules this module depends on, directly or through dependencies that are not carnotzet modules
+	private final Set<String> dependencies;
 
 	public String getShortImageName() {
 		String withoutHost = imageName.replaceFirst(".*/", "");
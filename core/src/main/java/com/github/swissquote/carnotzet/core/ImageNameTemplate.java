@@ -0,0 +1,59 @@
+package com.github.swissquote.carnotzet.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A docker.image value, parsed once into literal parts and ${...} placeholders.<br>
+ * Example : "${docker.registry}/${service.id}:${my-module.version}"
+ */
+public final class ImageNameTemplate {
+
+	private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^}\\s]+)\\}");
+
+	/**
+	 * literal parts at even indexes, placeholder names at odd indexes
+	 */
+	private final List<String> parts;
+
+	private ImageNameTemplate(List<String> parts) {
+		this.parts = parts;
+	}
+
+	public static ImageNameTemplate parse(String template) {
+		List<String> parts = new ArrayList<>();
+		Matcher matcher = PLACEHOLDER.matcher(template);
+		int literalStart = 0;
+		while (matcher.find()) {
+			parts.add(template.substring(literalStart, matcher.start()));
+			parts.add(matcher.group(1));
+			literalStart = matcher.end();
+		}
+		parts.add(template.substring(literalStart));
+		return new ImageNameTemplate(Collections.unmodifiableList(parts));
+	}
+
+	public boolean hasPlaceholders() {
+		return parts.size() > 1;
+	}
+
+	/**
+	 * @param placeholderValues gives the value of a placeholder from its name (e.g. "my-module.version")
+	 * @return the image name, with all the placeholders replaced
+	 */
+	public String render(Function<String, String> placeholderValues) {
+		if (!hasPlaceholders()) {
+			return parts.get(0);
+		}
+		StringBuilder imageName = new StringBuilder();
+		for (int i = 0; i < parts.size(); i++) {
+			imageName.append(i % 2 == 0 ? parts.get(i) : placeholderValues.apply(parts.get(i)));
+		}
+		return imageName.toString();
+	}
+
+}
@@ -1,6 +1,11 @@
 package com.github.swissquote.carnotzet.core.config;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
 
 /**
  * SPI to merge two configuration files in the hierarchical config system.
@@ -16,6 +21,33 @@ public interface FileMerger {
 	 */
 	void merge(Path file1, Path file2, Path output);
 
+	/**
+	 * Merges several files, the content of each file should have precedence over the ones before it in the list.
+	 * Implementations may override this method to merge all the files in a single pass, the default implementation merges
+	 * them two by two.
+	 * Implementations of this method must support the output path to be the same as one of the input file paths.
+	 * @param files files to merge (at least one), by increasing priority
+	 * @param output where the result will be written
+	 */
+	default void merge(List<Path> files, Path output) {
+		if (files.isEmpty()) {
+			throw new IllegalArgumentException("No file to merge into " + output);
+		}
+		Path merged = files.get(0);
+		for (Path file : files.subList(1, files.size())) {
+			merge(merged, file, output);
+			merged = output;
+		}
+		if (!merged.equals(output)) {
+			try {
+				Files.copy(merged, output, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
 	/**
 	 * Indicates if this file merger is able to merge a given file.
 	 * @param file to merge
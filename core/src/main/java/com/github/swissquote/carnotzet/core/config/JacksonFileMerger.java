@@ -0,0 +1,90 @@
+package com.github.swissquote.carnotzet.core.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Deep merges files of a format supported by jackson.<br>
+ * Objects are merged recursively, any other value (including arrays) of a file replaces the value of the files before it.
+ */
+public abstract class JacksonFileMerger implements FileMerger {
+
+	private final ObjectMapper mapper;
+
+	protected JacksonFileMerger(ObjectMapper mapper) {
+		this.mapper = mapper;
+	}
+
+	/**
+	 * Values of file2 have precedence over the ones in file1
+	 */
+	@Override
+	public void merge(Path file1Path, Path file2Path, Path output) {
+		merge(Arrays.asList(file1Path, file2Path), output);
+	}
+
+	/**
+	 * Values of each file have precedence over the ones in the files before it. Each file is parsed once, and the output is
+	 * written once.
+	 */
+	@Override
+	public void merge(List<Path> files, Path output) {
+		JsonNode merged = null;
+		try {
+			for (Path file : files) {
+				merged = merge(merged, read(file));
+			}
+			if (merged == null) {
+				// all files are empty
+				Files.write(output, new byte[0]);
+				return;
+			}
+			try (OutputStream out = Files.newOutputStream(output)) {
+				mapper.writerWithDefaultPrettyPrinter().writeValue(out, merged);
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Could not merge " + files + " into " + output, e);
+		}
+	}
+
+	private JsonNode read(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file); JsonParser parser = mapper.getFactory().createParser(in)) {
+			if (parser.nextToken() == null) {
+				// empty files are ignored
+				return null;
+			}
+			return mapper.readTree(parser);
+		}
+	}
+
+	private static JsonNode merge(JsonNode base, JsonNode overlay) {
+		if (overlay == null) {
+			return base;
+		}
+		if (base == null || !base.isObject() || !overlay.isObject()) {
+			return overlay;
+		}
+		ObjectNode merged = (ObjectNode) base;
+		Iterator<Map.Entry<String, JsonNode>> fields = overlay.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			merged.set(field.getKey(), merge(merged.get(field.getKey()), field.getValue()));
+		}
+		return merged;
+	}
+
+}
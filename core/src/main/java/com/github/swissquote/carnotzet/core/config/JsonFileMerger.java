@@ -0,0 +1,21 @@
+package com.github.swissquote.carnotzet.core.config;
+
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Know how to deep merge .json files
+ */
+public class JsonFileMerger extends JacksonFileMerger {
+
+	public JsonFileMerger() {
+		super(new ObjectMapper());
+	}
+
+	@Override
+	public boolean knowsHowToMerge(Path path) {
+		return path.toString().endsWith(".json");
+	}
+
+}
@@ -1,11 +1,12 @@
 package com.github.swissquote.carnotzet.core.config;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UncheckedIOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Properties;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
  * Know how to merge java .properties files
@@ -24,17 +25,21 @@ public class PropertiesAndEnvFileMerger implements FileMerger {
 	 */
 	@Override
 	public void merge(Path file1Path, Path file2Path, Path output) {
-		Properties file1 = new Properties();
-		Properties file2 = new Properties();
-		Properties merged = new Properties();
-		try (InputStream in1 = Files.newInputStream(file1Path)) {
-			file1.load(in1);
-			try (InputStream in2 = Files.newInputStream(file2Path)) {
-				file2.load(in2);
-				merged.putAll(file1);
-				merged.putAll(file2);
+		merge(Arrays.asList(file1Path, file2Path), output);
+	}
+
+	/**
+	 * Properties of each file have precedence over the ones in the files before it. All files are read before the output is
+	 * written, in a single pass.
+	 */
+	@Override
+	public void merge(List<Path> files, Path output) {
+		SortedMap<String, String> merged = new TreeMap<>();
+		try {
+			for (Path file : files) {
+				PropertyUtils.loadPropFile(file, merged);
 			}
-			// We don't use merged.store because the output is not consistent.
+			// We don't use Properties.store because the output is not consistent.
 			PropertyUtils.outputCleanPropFile(merged, output);
 		}
 		catch (IOException e) {
@@ -0,0 +1,78 @@
+package com.github.swissquote.carnotzet.core.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.Value;
+
+/**
+ * Keeps the content of properties files in memory, so that each file is parsed once as long as it does not change.<br>
+ * A cached file is read again when its size or last modification time changed. Since the modification time may not
+ * change when a file is rewritten quickly, components that rewrite properties files should also invalidate them.
+ */
+public class PropertiesCache {
+
+	private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * @param file the properties file to read
+	 * @return the properties defined in the file, or an empty map if it does not exist
+	 */
+	public Map<String, String> get(Path file) {
+		Path key = file.toAbsolutePath().normalize();
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(key, BasicFileAttributes.class);
+		}
+		catch (NoSuchFileException e) {
+			entries.remove(key);
+			return Collections.emptyMap();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		long lastModified = attributes.lastModifiedTime().toMillis();
+		long size = attributes.size();
+		Entry entry = entries.get(key);
+		if (entry == null || entry.getLastModified() != lastModified || entry.getSize() != size) {
+			entry = new Entry(lastModified, size, load(key));
+			entries.put(key, entry);
+		}
+		return entry.getProperties();
+	}
+
+	/**
+	 * Forgets the cached properties files located in a folder (or the file itself)
+	 */
+	public void invalidate(Path path) {
+		Path prefix = path.toAbsolutePath().normalize();
+		entries.keySet().removeIf(file -> file.startsWith(prefix));
+	}
+
+	private static Map<String, String> load(Path file) {
+		Map<String, String> properties = new HashMap<>();
+		try {
+			PropertyUtils.loadPropFile(file, properties);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return Collections.unmodifiableMap(properties);
+	}
+
+	@Value
+	private static class Entry {
+		private final long lastModified;
+		private final long size;
+		private final Map<String, String> properties;
+	}
+
+}
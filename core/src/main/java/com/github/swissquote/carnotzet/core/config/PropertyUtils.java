@@ -2,13 +2,14 @@ package com.github.swissquote.carnotzet.core.config;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
-import java.util.List;
+import java.util.Map;
 import java.util.Properties;
-import java.util.stream.Collectors;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 public final class PropertyUtils {
 
@@ -18,35 +19,63 @@ public final class PropertyUtils {
 
 	// Inspired by java.utils.Properties#store0, but sorts lines in lexicographical order and doesn't output comments in the file
 	public static void outputCleanPropFile(Properties props, Path path) throws IOException {
+		SortedMap<String, String> sorted = new TreeMap<>();
+		synchronized (props) {
+			props.forEach((key, value) -> sorted.put(key.toString(), (String) value));
+		}
+		outputCleanPropFile(sorted, path);
+	}
+
+	/**
+	 * Writes properties in lexicographical order of the keys, without comments.
+	 *
+	 * @param props the properties to write, sorted by key
+	 * @param path  the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void outputCleanPropFile(SortedMap<String, String> props, Path path) throws IOException {
 		try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path), "8859_1"))) {
-			synchronized (props) {
-				List<String> keys = Collections.list(props.keys()).stream().map(Object::toString).collect(Collectors.toList());
-				Collections.sort(keys);
-				for (String key : keys) {
-					String val = (String) props.get(key);
-					key = saveConvert(key, true, true);
-					/* No need to escape embedded and trailing spaces for value, hence
-					 * pass false to flag.
-					 */
-					val = saveConvert(val, false, true);
-					bw.write(key + "=" + val);
-					bw.newLine();
-				}
+			// a single buffer is reused for all the lines
+			StringBuilder line = new StringBuilder();
+			for (Map.Entry<String, String> property : props.entrySet()) {
+				line.setLength(0);
+				saveConvert(property.getKey(), true, true, line);
+				line.append('=');
+				/* No need to escape embedded and trailing spaces for value, hence
+				 * pass false to flag.
+				 */
+				saveConvert(property.getValue(), false, true, line);
+				bw.append(line);
+				bw.newLine();
 			}
 			bw.flush();
 		}
 	}
 
-	// Copied from java.util.Properties (and made static)
-	private static String saveConvert(String theString,
+	/**
+	 * Loads a properties file into a map, with the parser of java.util.Properties. Properties already present in the map are
+	 * replaced by the ones defined in the file.
+	 *
+	 * @param path   the file to load
+	 * @param target the map the properties are added to
+	 * @throws IOException if the file cannot be read
+	 */
+	public static void loadPropFile(Path path, Map<String, String> target) throws IOException {
+		Properties loaded = new Properties();
+		try (InputStream in = Files.newInputStream(path)) {
+			loaded.load(in);
+		}
+		for (String name : loaded.stringPropertyNames()) {
+			target.put(name, loaded.getProperty(name));
+		}
+	}
+
+	// Copied from java.util.Properties (and made static, appends to the given buffer)
+	private static void saveConvert(String theString,
 			boolean escapeSpace,
-			boolean escapeUnicode) {
+			boolean escapeUnicode,
+			StringBuilder outBuffer) {
 		int len = theString.length();
-		int bufLen = len * 2;
-		if (bufLen < 0) {
-			bufLen = Integer.MAX_VALUE;
-		}
-		StringBuffer outBuffer = new StringBuffer(bufLen);
 
 		for (int x = 0; x < len; x++) {
 			char aChar = theString.charAt(x);
@@ -104,7 +133,6 @@ public final class PropertyUtils {
 					}
 			}
 		}
-		return outBuffer.toString();
 	}
 
 	/**
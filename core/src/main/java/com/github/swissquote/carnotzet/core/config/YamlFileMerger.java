@@ -0,0 +1,23 @@
+package com.github.swissquote.carnotzet.core.config;
+
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+/**
+ * Know how to deep merge .yml and .yaml files (only the first document of each file is merged)
+ */
+public class YamlFileMerger extends JacksonFileMerger {
+
+	public YamlFileMerger() {
+		super(new ObjectMapper(new YAMLFactory()));
+	}
+
+	@Override
+	public boolean knowsHowToMerge(Path path) {
+		String fileName = path.toString();
+		return fileName.endsWith(".yml") || fileName.endsWith(".yaml");
+	}
+
+}
@@ -0,0 +1,17 @@
+package com.github.swissquote.carnotzet.core.docker.engine;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ContainerEndpoint {
+	@JsonProperty("IPAddress")
+	private String ipAddress;
+	@JsonProperty("Aliases")
+	private List<String> aliases;
+}
@@ -0,0 +1,15 @@
+package com.github.swissquote.carnotzet.core.docker.engine;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ContainerNetworkSettings {
+	@JsonProperty("Networks")
+	private Map<String, ContainerEndpoint> networks;
+}
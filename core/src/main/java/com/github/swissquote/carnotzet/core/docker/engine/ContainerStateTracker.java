@@ -0,0 +1,265 @@
+package com.github.swissquote.carnotzet.core.docker.engine;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+import com.github.swissquote.carnotzet.core.runtime.api.ContainerStateListener;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the state of the containers of an environment in memory, up to date with the event stream of the docker engine.<br>
+ * The first read subscribes to the container events matching the labels of the environment and lists the containers once.
+ * Events then refresh the snapshot in the background, a burst of events (ie: starting an environment) is coalesced into a single
+ * request and reads never call the docker engine. If the event stream is interrupted (ie: the docker daemon restarted), the next
+ * read subscribes again.<br>
+ * Runtimes should call refresh() after changing the containers themselves, so that their callers immediately see the new state
+ * without waiting for the events.
+ */
+@Slf4j
+public class ContainerStateTracker implements Closeable {
+
+	private final DockerEngineClient client;
+
+	private final Map<String, String> labels;
+
+	private final Function<ContainerSummary, Container> converter;
+
+	private final List<ContainerStateListener> listeners = new CopyOnWriteArrayList<>();
+
+	// containers by id, null when not subscribed to the events
+	private volatile Map<String, Container> containers;
+
+	// guarded by this
+	private EventStream events;
+
+	// guarded by this
+	private boolean closed;
+
+	// numbers the listings, so that a listing never replaces the result of a more recent one
+	private final AtomicLong listings = new AtomicLong();
+
+	// guarded by this
+	private long lastApplied;
+
+	/**
+	 * @param labels    containers having all these labels are tracked
+	 * @param converter converts the containers listed by the docker engine, containers converted to null are ignored
+	 */
+	public ContainerStateTracker(DockerEngineClient client, Map<String, String> labels, Function<ContainerSummary, Container> converter) {
+		this.client = client;
+		this.labels = labels;
+		this.converter = converter;
+	}
+
+	/**
+	 * @return the containers, sorted by service name
+	 */
+	public List<Container> getContainers() {
+		Map<String, Container> snapshot = containers;
+		if (snapshot == null) {
+			snapshot = subscribe();
+		}
+		return snapshot.values().stream().sorted(Comparator.comparing(Container::getServiceName)).collect(toList());
+	}
+
+	public void addListener(ContainerStateListener listener) {
+		listeners.add(listener);
+		if (containers == null) {
+			subscribe();
+		}
+	}
+
+	/**
+	 * Lists the containers again and notifies the listeners of the changes. Does nothing if not subscribed to the events yet.
+	 */
+	public void refresh() {
+		if (containers == null) {
+			return;
+		}
+		// list without holding the lock, reads keep using the previous snapshot meanwhile
+		long listing = listings.incrementAndGet();
+		Map<String, Container> current = list();
+		List<Change> changes;
+		synchronized (this) {
+			if (containers == null || listing < lastApplied) {
+				return;
+			}
+			lastApplied = listing;
+			changes = update(current);
+		}
+		notifyListeners(changes);
+	}
+
+	private synchronized Map<String, Container> subscribe() {
+		if (containers != null) {
+			return containers;
+		}
+		if (closed) {
+			return list();
+		}
+		try {
+			// subscribe before listing, so that no change is missed in between
+			events = client.openContainerEvents(labels);
+		}
+		catch (RuntimeException e) {
+			log.debug("Could not subscribe to docker events, the containers will be listed on every read", e);
+			return list();
+		}
+		EventStream subscription = events;
+		Map<String, Container> listed;
+		try {
+			listed = list();
+		}
+		catch (RuntimeException e) {
+			// the next read subscribes again
+			events = null;
+			closeQuietly(subscription);
+			throw e;
+		}
+		// the events received meanwhile wait in the stream. At most one refresh is pending, the events received while listing are
+		// covered by the next listing
+		BlockingQueue<Boolean> pendingRefresh = new ArrayBlockingQueue<>(1);
+		Thread refresher = new Thread(() -> refreshOnEvents(pendingRefresh), "carnotzet-events-refresh");
+		refresher.setDaemon(true);
+		refresher.start();
+		Thread thread = new Thread(() -> consumeEvents(subscription, pendingRefresh, refresher), "carnotzet-events");
+		thread.setDaemon(true);
+		thread.start();
+		containers = listed;
+		return containers;
+	}
+
+	private void consumeEvents(EventStream subscription, BlockingQueue<Boolean> pendingRefresh, Thread refresher) {
+		try {
+			while (subscription.next() != null) {
+				if (!pendingRefresh.offer(Boolean.TRUE)) {
+					log.trace("Docker event coalesced with the pending refresh");
+				}
+			}
+		}
+		catch (IOException | RuntimeException e) {
+			log.debug("Docker event stream interrupted", e);
+		}
+		finally {
+			synchronized (this) {
+				if (events == subscription) {
+					events = null;
+					containers = null;
+				}
+			}
+			refresher.interrupt();
+			closeQuietly(subscription);
+		}
+	}
+
+	private void refreshOnEvents(BlockingQueue<Boolean> pendingRefresh) {
+		try {
+			while (true) {
+				pendingRefresh.take();
+				try {
+					refresh();
+				}
+				catch (RuntimeException e) {
+					log.debug("Could not refresh the containers after a docker event", e);
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			// event stream interrupted
+		}
+	}
+
+	private Map<String, Container> list() {
+		Map<String, Container> result = new LinkedHashMap<>();
+		for (ContainerSummary summary : client.listContainers(labels)) {
+			Container container = converter.apply(summary);
+			if (container != null) {
+				result.put(container.getId(), container);
+			}
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	// guarded by this
+	private List<Change> update(Map<String, Container> current) {
+		Map<String, Container> previous = containers;
+		containers = current;
+		List<Change> changes = new ArrayList<>();
+		Set<String> ids = new HashSet<>(previous.keySet());
+		ids.addAll(current.keySet());
+		for (String id : ids) {
+			Container before = previous.get(id);
+			Container after = current.get(id);
+			if (!Objects.equals(before, after)) {
+				changes.add(new Change(before, after));
+			}
+		}
+		return changes;
+	}
+
+	private void notifyListeners(List<Change> changes) {
+		for (Change change : changes) {
+			for (ContainerStateListener listener : listeners) {
+				try {
+					listener.onStateChange(change.getPrevious(), change.getCurrent());
+				}
+				catch (RuntimeException e) {
+					log.warn("Container state listener [" + listener + "] failed", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Unsubscribes from the docker events, subsequent reads list the containers every time
+	 */
+	@Override
+	public void close() {
+		EventStream subscription;
+		synchronized (this) {
+			closed = true;
+			subscription = events;
+			events = null;
+			containers = null;
+		}
+		closeQuietly(subscription);
+	}
+
+	private static void closeQuietly(EventStream subscription) {
+		if (subscription == null) {
+			return;
+		}
+		try {
+			subscription.close();
+		}
+		catch (IOException e) {
+			log.debug("Could not close docker event stream", e);
+		}
+	}
+
+	@Value
+	private static final class Change {
+		private final Container previous;
+		private final Container current;
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.github.swissquote.carnotzet.core.docker.engine;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Data;
+
+/**
+ * Container, as listed by the GET /containers/json endpoint of the docker engine
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ContainerSummary {
+	@JsonProperty("Id")
+	private String id;
+	@JsonProperty("Names")
+	private List<String> names;
+	@JsonProperty("Image")
+	private String image;
+	@JsonProperty("State")
+	private String state;
+	@JsonProperty("Labels")
+	private Map<String, String> labels;
+	@JsonProperty("NetworkSettings")
+	private ContainerNetworkSettings networkSettings;
+
+	public boolean isRunning() {
+		return "running".equals(state);
+	}
+}
@@ -0,0 +1,585 @@
+package com.github.swissquote.carnotzet.core.docker.engine;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Minimal client of the docker engine REST API.<br>
+ * Requests are sent to the unix socket of the docker daemon (or to the tcp endpoint set in DOCKER_HOST), without forking a docker
+ * CLI process for each call. Unix sockets are opened with the JDK from java 16 onwards, and through the C library on older JVMs.
+ * Runtimes should check isAvailable() and fall back to the docker CLI when the docker engine cannot be reached.
+ */
+@Slf4j
+public class DockerEngineClient {
+
+	public static final String DEFAULT_DOCKER_HOST = "unix:///var/run/docker.sock";
+
+	private static final String API_VERSION = "/v1.25";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	@Getter
+	private final String dockerHost;
+
+	private volatile Boolean available;
+
+	public DockerEngineClient(String dockerHost) {
+		this.dockerHost = dockerHost;
+	}
+
+	/**
+	 * @return a client for the docker daemon designated by the DOCKER_HOST environment variable, or the default unix socket
+	 */
+	public static DockerEngineClient fromEnv() {
+		String dockerHost = System.getenv("DOCKER_HOST");
+		return new DockerEngineClient(Strings.isNullOrEmpty(dockerHost) ? DEFAULT_DOCKER_HOST : dockerHost);
+	}
+
+	/**
+	 * @return true if the docker daemon answers to requests sent by this client. The result of the first check is reused.
+	 */
+	public boolean isAvailable() {
+		Boolean result = available;
+		if (result == null) {
+			try (Response response = execute("GET", "/_ping", null)) {
+				result = response.getStatus() == 200;
+			}
+			catch (IOException | RuntimeException e) {
+				log.info("Docker engine API is not reachable through [{}], the docker CLI will be used : {}", dockerHost, e.toString());
+				log.debug("Docker engine API is not reachable through [" + dockerHost + "]", e);
+				result = false;
+			}
+			available = result;
+		}
+		return result;
+	}
+
+	/**
+	 * @param labels only containers having all these labels are listed
+	 * @return the running and stopped containers with the given labels
+	 */
+	public List<ContainerSummary> listContainers(Map<String, String> labels) {
+		Map<String, List<String>> filters = new HashMap<>();
+		filters.put("label", toLabelFilter(labels));
+		try (Response response = execute("GET", "/containers/json?all=1&filters=" + encode(MAPPER.writeValueAsString(filters)), null)) {
+			check(response, "list containers");
+			return MAPPER.readValue(response.getBody(), new TypeReference<List<ContainerSummary>>() {
+			});
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return the result of docker inspect for the container, or null if it does not exist
+	 */
+	public JsonNode inspectContainer(String containerId) {
+		return inspect("/containers/" + encode(containerId) + "/json", "inspect container [" + containerId + "]");
+	}
+
+	/**
+	 * Stops a container, does nothing if it is already stopped or does not exist
+	 *
+	 * @param timeoutSeconds time given to the container to stop before it is killed
+	 */
+	public void stopContainer(String containerId, int timeoutSeconds) {
+		try (Response response = execute("POST", "/containers/" + encode(containerId) + "/stop?t=" + timeoutSeconds, null)) {
+			check(response, "stop container [" + containerId + "]", 304, 404);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Removes a stopped container, does nothing if it does not exist
+	 */
+	public void removeContainer(String containerId) {
+		removeContainer(containerId, false);
+	}
+
+	/**
+	 * Removes a container, does nothing if it does not exist
+	 *
+	 * @param force also removes the container if it is running
+	 */
+	public void removeContainer(String containerId, boolean force) {
+		try (Response response = execute("DELETE", "/containers/" + encode(containerId) + (force ? "?force=1" : ""), null)) {
+			check(response, "remove container [" + containerId + "]", 404);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return the result of docker inspect for the image, or null if it does not exist on the docker host
+	 */
+	public JsonNode inspectImage(String image) {
+		return inspect("/images/" + encode(image) + "/json", "inspect image [" + image + "]");
+	}
+
+	/**
+	 * @return the result of docker network inspect for the network, or null if it does not exist
+	 */
+	public JsonNode inspectNetwork(String network) {
+		return inspect("/networks/" + encode(network), "inspect network [" + network + "]");
+	}
+
+	/**
+	 * Creates a bridge network, does nothing if a network with the same name already exists
+	 */
+	public void createNetwork(String network, Map<String, String> labels) {
+		Map<String, Object> config = new LinkedHashMap<>();
+		config.put("Name", network);
+		config.put("Driver", "bridge");
+		config.put("CheckDuplicate", true);
+		config.put("Labels", labels);
+		try (Response response = execute("POST", "/networks/create", config)) {
+			check(response, "create network [" + network + "]", 409);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Connects a container to a network, does nothing if it is already connected
+	 */
+	public void connectNetwork(String network, String containerId) {
+		try (Response response = execute("POST", "/networks/" + encode(network) + "/connect",
+				Collections.singletonMap("Container", containerId))) {
+			check(response, "connect container [" + containerId + "] to network [" + network + "]", 403, 409);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @param config body of the create request, as documented in the docker engine API
+	 * @return the id of the created container
+	 */
+	public String createContainer(String name, Object config) {
+		try (Response response = execute("POST", "/containers/create?name=" + encode(name), config)) {
+			check(response, "create container [" + name + "]");
+			return MAPPER.readTree(response.getBody()).path("Id").asText();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Starts a container, does nothing if it is already running
+	 */
+	public void startContainer(String containerId) {
+		try (Response response = execute("POST", "/containers/" + encode(containerId) + "/start", null)) {
+			check(response, "start container [" + containerId + "]", 304);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Opens the log stream of a container, lines of stdout and stderr are read from the same stream.
+	 *
+	 * @param since  only returns the lines logged after this time, null to return all lines
+	 * @param tail   number of lines to return from the end of the logs, null to return all lines
+	 * @param follow keeps the stream open and returns the new lines as they are logged, until the stream is closed or the
+	 *               container stops
+	 */
+	public LogStream openLogs(String containerId, Instant since, Integer tail, boolean follow) {
+		return openLogs(containerId, since, tail, follow, false);
+	}
+
+	/**
+	 * Same as openLogs(containerId, since, tail, follow)
+	 *
+	 * @param timestamps prefixes each line with the time it was logged (RFC3339 with nanoseconds) and a space
+	 */
+	public LogStream openLogs(String containerId, Instant since, Integer tail, boolean follow, boolean timestamps) {
+		StringBuilder path = new StringBuilder("/containers/").append(encode(containerId)).append("/logs?stdout=1&stderr=1")
+				.append("&follow=").append(follow ? 1 : 0)
+				.append("&tail=").append(tail == null ? "all" : tail.toString());
+		if (timestamps) {
+			path.append("&timestamps=1");
+		}
+		if (since != null) {
+			path.append("&since=").append(since.getEpochSecond());
+		}
+		Response response = null;
+		try {
+			response = execute("GET", path.toString(), null);
+			check(response, "read logs of container [" + containerId + "]");
+			return new LogStream(response);
+		}
+		catch (IOException e) {
+			closeQuietly(response);
+			throw new UncheckedIOException(e);
+		}
+		catch (RuntimeException e) {
+			closeQuietly(response);
+			throw e;
+		}
+	}
+
+	/**
+	 * Subscribes to the container events of the docker engine (create, start, die, destroy...)
+	 *
+	 * @param labels only events of containers having all these labels are received
+	 */
+	public EventStream openContainerEvents(Map<String, String> labels) {
+		Map<String, List<String>> filters = new HashMap<>();
+		filters.put("type", Collections.singletonList("container"));
+		filters.put("label", toLabelFilter(labels));
+		Response response = null;
+		try {
+			response = execute("GET", "/events?filters=" + encode(MAPPER.writeValueAsString(filters)), null);
+			check(response, "subscribe to events");
+			return new EventStream(response, MAPPER.readerFor(JsonNode.class));
+		}
+		catch (IOException e) {
+			closeQuietly(response);
+			throw new UncheckedIOException(e);
+		}
+		catch (RuntimeException e) {
+			closeQuietly(response);
+			throw e;
+		}
+	}
+
+	private static List<String> toLabelFilter(Map<String, String> labels) {
+		return labels.entrySet().stream().map(e -> e.getKey() + "=" + e.getValue()).collect(Collectors.toList());
+	}
+
+	private JsonNode inspect(String path, String action) {
+		try (Response response = execute("GET", path, null)) {
+			if (response.getStatus() == 404) {
+				return null;
+			}
+			check(response, action);
+			return MAPPER.readTree(response.getBody());
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable == null) {
+			return;
+		}
+		try {
+			closeable.close();
+		}
+		catch (IOException e) {
+			log.debug("Could not close docker engine connection", e);
+		}
+	}
+
+	/**
+	 * Fails if the status of the response is not a success or one of the accepted statuses
+	 */
+	private static void check(Response response, String action, int... acceptedStatuses) throws IOException {
+		int status = response.getStatus();
+		if (status >= 200 && status < 300) {
+			return;
+		}
+		for (int accepted : acceptedStatuses) {
+			if (status == accepted) {
+				return;
+			}
+		}
+		String message = new String(ByteStreams.toByteArray(response.getBody()), StandardCharsets.UTF_8);
+		try {
+			message = MAPPER.readTree(message).path("message").asText(message);
+		}
+		catch (IOException e) {
+			// not a json error, use the raw body
+		}
+		throw new CarnotzetDefinitionException("Docker engine failed to " + action + ", status [" + status + "] : " + message);
+	}
+
+	private static String encode(String value) {
+		try {
+			return URLEncoder.encode(value, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Sends a request on a new connection, the connection is closed with the response.
+	 *
+	 * @param body serialized as json if not null
+	 */
+	Response execute(String method, String path, Object body) throws IOException {
+		byte[] content = body == null ? null : MAPPER.writeValueAsBytes(body);
+		Connection connection = open();
+		try {
+			StringBuilder request = new StringBuilder()
+					.append(method).append(' ').append(API_VERSION).append(path).append(" HTTP/1.1\r\n")
+					.append("Host: docker\r\n")
+					.append("Connection: close\r\n");
+			if (content != null) {
+				request.append("Content-Type: application/json\r\n")
+						.append("Content-Length: ").append(content.length).append("\r\n");
+			}
+			request.append("\r\n");
+			OutputStream out = connection.getOutputStream();
+			out.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+			if (content != null) {
+				out.write(content);
+			}
+			out.flush();
+
+			InputStream in = new BufferedInputStream(connection.getInputStream());
+			String[] statusLine = readLine(in).split(" ", 3);
+			if (statusLine.length < 2 || !statusLine[0].startsWith("HTTP/")) {
+				throw new IOException("Unexpected response from the docker engine : " + String.join(" ", statusLine));
+			}
+			int status;
+			try {
+				status = Integer.parseInt(statusLine[1]);
+			}
+			catch (NumberFormatException e) {
+				throw new IOException("Unexpected response status from the docker engine : " + statusLine[1], e);
+			}
+			Map<String, String> headers = new HashMap<>();
+			for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+				int colon = line.indexOf(':');
+				if (colon > 0) {
+					headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+				}
+			}
+			InputStream responseBody = in;
+			if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+				responseBody = new ChunkedInputStream(in);
+			} else if (headers.containsKey("content-length")) {
+				responseBody = ByteStreams.limit(in, Long.parseLong(headers.get("content-length")));
+			}
+			return new Response(status, Collections.unmodifiableMap(headers), responseBody, connection);
+		}
+		catch (IOException | RuntimeException e) {
+			connection.close();
+			throw e;
+		}
+	}
+
+	private Connection open() throws IOException {
+		if (dockerHost.startsWith("unix://")) {
+			return openUnixSocket(dockerHost.substring("unix://".length()));
+		}
+		if (dockerHost.startsWith("tcp://")) {
+			URI uri = URI.create(dockerHost);
+			return new ChannelConnection(SocketChannel.open(new InetSocketAddress(uri.getHost(), uri.getPort() < 0 ? 2375 : uri.getPort())));
+		}
+		throw new IOException("Unsupported docker host [" + dockerHost + "]");
+	}
+
+	// UnixDomainSocketAddress and SocketChannel.open(ProtocolFamily) only exist since java 16, the C library is used before
+	private static Connection openUnixSocket(String path) throws IOException {
+		SocketAddress address;
+		SocketChannel channel;
+		try {
+			address = (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class).invoke(null, path);
+			ProtocolFamily unix = StandardProtocolFamily.valueOf("UNIX");
+			channel = (SocketChannel) SocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, unix);
+		}
+		catch (InvocationTargetException e) {
+			throw new IOException("Could not open unix socket [" + path + "]", e.getCause());
+		}
+		catch (ReflectiveOperationException | IllegalArgumentException e) {
+			return openNativeUnixSocket(path);
+		}
+		try {
+			channel.connect(address);
+			return new ChannelConnection(channel);
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private static Connection openNativeUnixSocket(String path) throws IOException {
+		try {
+			return NativeUnixSocket.connect(path);
+		}
+		catch (LinkageError e) {
+			throw new IOException("Unix sockets are not supported by this JVM, nor through the C library of this platform", e);
+		}
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		for (int b = in.read(); b != '\n'; b = in.read()) {
+			if (b < 0) {
+				throw new EOFException("Connection closed by the docker engine");
+			}
+			line.write(b);
+		}
+		String result = new String(line.toByteArray(), StandardCharsets.ISO_8859_1);
+		return result.endsWith("\r") ? result.substring(0, result.length() - 1) : result;
+	}
+
+	/**
+	 * Connection to the docker engine. Closing it from another thread makes the pending reads return.
+	 */
+	interface Connection extends Closeable {
+
+		InputStream getInputStream() throws IOException;
+
+		OutputStream getOutputStream() throws IOException;
+	}
+
+	private static final class ChannelConnection implements Connection {
+		private final SocketChannel channel;
+
+		private ChannelConnection(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return Channels.newInputStream(channel);
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return Channels.newOutputStream(channel);
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Response of the docker engine, its body can be read as it is received. Closing the response closes the connection.
+	 */
+	@Getter
+	static final class Response implements Closeable {
+		private final int status;
+		private final Map<String, String> headers;
+		private final InputStream body;
+		private final Connection connection;
+
+		private Response(int status, Map<String, String> headers, InputStream body, Connection connection) {
+			this.status = status;
+			this.headers = headers;
+			this.body = body;
+			this.connection = connection;
+		}
+
+		@Override
+		public void close() throws IOException {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Decodes a body sent with "Transfer-Encoding: chunked"
+	 */
+	private static final class ChunkedInputStream extends InputStream {
+		private final InputStream in;
+		private long remaining;
+		private boolean eof;
+
+		private ChunkedInputStream(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (remaining == 0 && !nextChunk()) {
+				return -1;
+			}
+			int read = in.read(b, off, (int) Math.min(len, remaining));
+			if (read < 0) {
+				throw new EOFException("Connection closed by the docker engine in the middle of a chunk");
+			}
+			remaining -= read;
+			if (remaining == 0) {
+				readLine(in); // CRLF at the end of the chunk
+			}
+			return read;
+		}
+
+		private boolean nextChunk() throws IOException {
+			if (eof) {
+				return false;
+			}
+			String size = readLine(in);
+			int extension = size.indexOf(';');
+			if (extension >= 0) {
+				size = size.substring(0, extension);
+			}
+			try {
+				remaining = Long.parseLong(size.trim(), 16);
+			}
+			catch (NumberFormatException e) {
+				throw new IOException("Invalid chunk size [" + size + "]", e);
+			}
+			if (remaining == 0) {
+				// trailers
+				for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+					log.trace("Ignoring trailer [{}]", line);
+				}
+				eof = true;
+				return false;
+			}
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.github.swissquote.carnotzet.core.docker.engine;
+
+import java.net.InetSocketAddress;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+import com.github.swissquote.carnotzet.core.runtime.log.CurrentRunLogReader;
+import com.github.swissquote.carnotzet.core.runtime.log.LogReader;
+import com.github.swissquote.carnotzet.core.runtime.readiness.ContainerInspector;
+import com.github.swissquote.carnotzet.core.runtime.readiness.PublishedPorts;
+
+/**
+ * Inspects the containers for the readiness probes through the docker engine API
+ */
+public class EngineContainerInspector implements ContainerInspector {
+
+	private final DockerEngineClient client;
+
+	public EngineContainerInspector(DockerEngineClient client) {
+		this.client = client;
+	}
+
+	@Override
+	public String getHealthStatus(Container container) {
+		JsonNode inspected = client.inspectContainer(container.getId());
+		return inspected == null ? null : inspected.path("State").path("Health").path("Status").textValue();
+	}
+
+	@Override
+	public InetSocketAddress getAddress(Container container, int port) {
+		JsonNode inspected = client.inspectContainer(container.getId());
+		JsonNode binding = inspected == null ? null : inspected.path("NetworkSettings").path("Ports").path(port + "/tcp").path(0);
+		if (binding == null || !binding.has("HostPort")) {
+			return ContainerInspector.super.getAddress(container, port);
+		}
+		return PublishedPorts.toAddress(binding.path("HostIp").asText(), Integer.parseInt(binding.path("HostPort").asText()),
+				client.getDockerHost());
+	}
+
+	@Override
+	public LogReader openLogs(Container container) {
+		JsonNode state = client.inspectContainer(container.getId());
+		return CurrentRunLogReader.open(state == null ? null : state.path("State").path("StartedAt").textValue(),
+				state == null ? null : state.path("State").path("FinishedAt").textValue(),
+				since -> client.openLogs(container.getId(), since, null, true, true));
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.github.swissquote.carnotzet.core.docker.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Events sent by the docker engine, as they happen. Closing the stream from another thread interrupts a blocked next().
+ */
+public final class EventStream implements Closeable {
+
+	private final DockerEngineClient.Response response;
+
+	private final ObjectReader reader;
+
+	// created on the first read, since creating it blocks until the first event is received
+	private MappingIterator<JsonNode> events;
+
+	EventStream(DockerEngineClient.Response response, ObjectReader reader) {
+		this.response = response;
+		this.reader = reader;
+	}
+
+	/**
+	 * Blocks until the next event is received
+	 *
+	 * @return the event, or null if the docker engine closed the stream
+	 */
+	public JsonNode next() throws IOException {
+		try {
+			if (events == null) {
+				events = reader.readValues(response.getBody());
+			}
+			return events.hasNextValue() ? events.nextValue() : null;
+		}
+		catch (RuntimeException e) {
+			throw new IOException("Could not read event from the docker engine", e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		response.close();
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.github.swissquote.carnotzet.core.docker.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.github.swissquote.carnotzet.core.runtime.log.LogReader;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Log lines of a container, read from the stream returned by the docker engine.<br>
+ * Containers without tty send a multiplexed stream : each frame starts with an 8 bytes header holding the stream it comes from
+ * (stdout or stderr) and the size of its payload. Lines of each stream are rebuilt separately since a line can span several frames.
+ * Closing the stream from another thread interrupts a blocked readLine().
+ */
+public final class LogStream implements LogReader {
+
+	private static final int HEADER_SIZE = 8;
+
+	private final DockerEngineClient.Response response;
+
+	private final InputStream in;
+
+	// partial lines of stdin, stdout and stderr
+	private final ByteArrayOutputStream[] partialLines = {
+			new ByteArrayOutputStream(), new ByteArrayOutputStream(), new ByteArrayOutputStream()};
+
+	private final Deque<String> lines = new ArrayDeque<>();
+
+	private boolean raw;
+
+	private boolean eof;
+
+	LogStream(DockerEngineClient.Response response) {
+		this.response = response;
+		this.in = response.getBody();
+	}
+
+	@Override
+	public String readLine() throws IOException {
+		while (lines.isEmpty() && !eof) {
+			readFrame();
+		}
+		return lines.poll();
+	}
+
+	private void readFrame() throws IOException {
+		if (raw) {
+			byte[] buffer = new byte[8192];
+			int read = in.read(buffer);
+			if (read < 0) {
+				endOfStream();
+			} else {
+				append(1, buffer, 0, read);
+			}
+			return;
+		}
+		byte[] header = new byte[HEADER_SIZE];
+		int read = ByteStreams.read(in, header, 0, HEADER_SIZE);
+		if (read < HEADER_SIZE || header[0] > 2 || header[1] != 0 || header[2] != 0 || header[3] != 0) {
+			// not a multiplexed stream (container with a tty), the header is part of the logs
+			raw = true;
+			append(1, header, 0, read);
+			if (read < HEADER_SIZE) {
+				endOfStream();
+			}
+			return;
+		}
+		int size = ((header[4] & 0xff) << 24) | ((header[5] & 0xff) << 16) | ((header[6] & 0xff) << 8) | (header[7] & 0xff);
+		byte[] payload = new byte[size];
+		ByteStreams.readFully(in, payload);
+		append(header[0], payload, 0, size);
+	}
+
+	private void append(int stream, byte[] data, int offset, int length) {
+		ByteArrayOutputStream partial = partialLines[stream];
+		for (int i = offset; i < offset + length; i++) {
+			if (data[i] == '\n') {
+				lines.add(toLine(partial));
+			} else {
+				partial.write(data[i]);
+			}
+		}
+	}
+
+	private void endOfStream() {
+		eof = true;
+		for (ByteArrayOutputStream partial : partialLines) {
+			if (partial.size() > 0) {
+				lines.add(toLine(partial));
+			}
+		}
+	}
+
+	private static String toLine(ByteArrayOutputStream partial) {
+		String line = new String(partial.toByteArray(), StandardCharsets.UTF_8);
+		partial.reset();
+		return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+	}
+
+	@Override
+	public void close() throws IOException {
+		response.close();
+	}
+
+}
@@ -0,0 +1,218 @@
+package com.github.swissquote.carnotzet.core.docker.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.sun.jna.LastErrorException;
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Platform;
+
+/**
+ * Unix socket opened through the C library, used on the JVMs which do not support unix sockets (before java 16).<br>
+ * Closing the socket shuts it down first, so that the reads pending in other threads return. The file descriptor is released once
+ * the pending calls returned.
+ */
+/* package */ final class NativeUnixSocket implements DockerEngineClient.Connection {
+
+	private static final int AF_UNIX = 1;
+	private static final int SOCK_STREAM = 1;
+	private static final int SHUT_RDWR = 2;
+	private static final int EINTR = 4;
+
+	// size of sun_path in struct sockaddr_un
+	private static final int MAX_PATH_LENGTH = Platform.isMac() ? 104 : 108;
+
+	private final int fd;
+
+	// guarded by this
+	private int pendingCalls;
+
+	// guarded by this
+	private boolean closed;
+
+	private NativeUnixSocket(int fd) {
+		this.fd = fd;
+	}
+
+	/**
+	 * @throws LinkageError if the C library cannot be used on this platform
+	 */
+	/* package */ static NativeUnixSocket connect(String path) throws IOException {
+		byte[] address = toSocketAddress(path);
+		int fd;
+		try {
+			fd = LibC.INSTANCE.socket(AF_UNIX, SOCK_STREAM, 0);
+		}
+		catch (LastErrorException e) {
+			throw new IOException("Could not create unix socket, errno [" + e.getErrorCode() + "]", e);
+		}
+		NativeUnixSocket socket = new NativeUnixSocket(fd);
+		try {
+			LibC.INSTANCE.connect(fd, address, address.length);
+			return socket;
+		}
+		catch (LastErrorException e) {
+			socket.close();
+			throw new IOException("Could not connect to unix socket [" + path + "], errno [" + e.getErrorCode() + "]", e);
+		}
+	}
+
+	// struct sockaddr_un, prefixed by its length on BSD systems
+	private static byte[] toSocketAddress(String path) throws IOException {
+		byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+		if (pathBytes.length >= MAX_PATH_LENGTH) {
+			throw new IOException("Unix socket path is too long [" + path + "]");
+		}
+		ByteBuffer address = ByteBuffer.allocate(2 + MAX_PATH_LENGTH).order(ByteOrder.nativeOrder());
+		if (Platform.isMac() || Platform.isFreeBSD()) {
+			address.put((byte) address.capacity()).put((byte) AF_UNIX);
+		} else {
+			address.putShort((short) AF_UNIX);
+		}
+		address.put(pathBytes);
+		return address.array();
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		return new InputStream() {
+			@Override
+			public int read() throws IOException {
+				byte[] b = new byte[1];
+				return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				if (len == 0) {
+					return 0;
+				}
+				byte[] buffer = off == 0 ? b : new byte[len];
+				int read = (int) call(() -> LibC.INSTANCE.read(fd, buffer, new NativeLong(len)).longValue());
+				if (read <= 0) {
+					return -1;
+				}
+				if (buffer != b) {
+					System.arraycopy(buffer, 0, b, off, read);
+				}
+				return read;
+			}
+
+			@Override
+			public void close() throws IOException {
+				NativeUnixSocket.this.close();
+			}
+		};
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		return new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] {(byte) b}, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				int written = 0;
+				while (written < len) {
+					byte[] chunk = off + written == 0 ? b : Arrays.copyOfRange(b, off + written, off + len);
+					int count = len - written;
+					written += (int) call(() -> LibC.INSTANCE.write(fd, chunk, new NativeLong(count)).longValue());
+				}
+			}
+
+			@Override
+			public void close() throws IOException {
+				NativeUnixSocket.this.close();
+			}
+		};
+	}
+
+	private long call(NativeCall call) throws IOException {
+		synchronized (this) {
+			if (closed) {
+				throw new SocketException("Socket closed");
+			}
+			pendingCalls++;
+		}
+		try {
+			while (true) {
+				try {
+					return call.invoke();
+				}
+				catch (LastErrorException e) {
+					if (e.getErrorCode() != EINTR) {
+						throw new IOException("Unix socket call failed, errno [" + e.getErrorCode() + "]", e);
+					}
+				}
+			}
+		}
+		finally {
+			synchronized (this) {
+				pendingCalls--;
+				if (closed && pendingCalls == 0) {
+					release();
+				}
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			LibC.INSTANCE.shutdown(fd, SHUT_RDWR);
+		}
+		catch (LastErrorException e) {
+			// not connected
+		}
+		if (pendingCalls == 0) {
+			release();
+		}
+	}
+
+	// guarded by this
+	private void release() {
+		try {
+			LibC.INSTANCE.close(fd);
+		}
+		catch (LastErrorException e) {
+			// already released
+		}
+	}
+
+	private interface NativeCall {
+		long invoke();
+	}
+
+	private interface LibC extends Library {
+
+		LibC INSTANCE = (LibC) Native.loadLibrary("c", LibC.class);
+
+		int socket(int domain, int type, int protocol) throws LastErrorException;
+
+		int connect(int fd, byte[] address, int addressLength) throws LastErrorException;
+
+		NativeLong read(int fd, byte[] buffer, NativeLong count) throws LastErrorException;
+
+		NativeLong write(int fd, byte[] buffer, NativeLong count) throws LastErrorException;
+
+		int shutdown(int fd, int how) throws LastErrorException;
+
+		int close(int fd) throws LastErrorException;
+	}
+
+}
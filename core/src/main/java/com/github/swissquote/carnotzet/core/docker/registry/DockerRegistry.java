@@ -1,11 +1,19 @@
 package com.github.swissquote.carnotzet.core.docker.registry;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
@@ -14,6 +22,8 @@ import javax.ws.rs.client.WebTarget;
 import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
 import org.glassfish.jersey.jackson.JacksonFeature;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.jaxrs.cfg.Annotations;
@@ -22,8 +32,11 @@ import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
 import com.github.swissquote.carnotzet.core.CarnotzetModule;
 import com.github.swissquote.carnotzet.core.runtime.DefaultCommandRunner;
 import com.github.swissquote.carnotzet.core.runtime.api.PullPolicy;
+import com.github.swissquote.carnotzet.core.util.ConcurrentTasks;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @RequiredArgsConstructor
@@ -32,13 +45,72 @@ public class DockerRegistry {
 
 	public static final DockerRegistry INSTANCE = new DockerRegistry();
 
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private static final String LOCAL_IMAGE_FORMAT = "{\"id\":{{json .Id}},\"created\":{{json .Created}},"
+			+ "\"entrypoint\":{{json .Config.Entrypoint}},\"cmd\":{{json .Config.Cmd}}}";
+
 	private final DockerConfig config = DockerConfig.fromEnv();
-	private final Map<String, WebTarget> webTargets = new HashMap<>();
+	private final Map<String, WebTarget> webTargets = new ConcurrentHashMap<>();
+
+	/**
+	 * Metadata of the registry and local images, shared by the pull policies and the startup wrappers
+	 */
+	@Getter
+	@Setter
+	private volatile ImageMetadataCache metadataCache = new ImageMetadataCache();
 
 	public ImageMetaData getImageMetaData(ImageRef imageRef) {
+		ImageMetaData cached = metadataCache.getRegistryMetadata(imageRef);
+		if (cached != null) {
+			return cached;
+		}
 		DistributionManifestV2 di = getDistributionManifest(imageRef);
-		ContainerImageV1 im = getImageManifest(imageRef, di);
-		return new ImageMetaData(di, im);
+		// tags of the same image share the same configuration digest, its content is only fetched once
+		ImageMetaData metadata = di.getConfig() == null ? null : metadataCache.getRegistryMetadataByDigest(di.getConfig().getDigest());
+		if (metadata == null) {
+			ContainerImageV1 im = getImageManifest(imageRef, di);
+			metadata = new ImageMetaData(di, im);
+		}
+		metadataCache.putRegistryMetadata(imageRef, metadata);
+		return metadata;
+	}
+
+	/**
+	 * @return the metadata of the image on the docker host, or null if the image doesn't exist on the docker host
+	 */
+	public LocalImage getLocalImage(String imageName) {
+		return metadataCache.getLocalImage(imageName, DockerRegistry::inspectLocalImage);
+	}
+
+	private static LocalImage inspectLocalImage(String imageName) {
+		String output;
+		try {
+			output = DefaultCommandRunner.INSTANCE.runCommandAndCaptureOutput("docker", "inspect", "--type=image", "-f", LOCAL_IMAGE_FORMAT, imageName);
+		}
+		catch (RuntimeException e) {
+			log.debug("Could not inspect local image [" + imageName + "], assuming it doesn't exist on the local docker host", e);
+			return null;
+		}
+		try {
+			JsonNode image = MAPPER.readTree(output.trim());
+			return new LocalImage(
+					image.path("id").asText(),
+					Instant.from(DateTimeFormatter.ISO_ZONED_DATE_TIME.parse(image.path("created").asText())),
+					toList(image.get("entrypoint")),
+					toList(image.get("cmd")));
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static List<String> toList(JsonNode array) {
+		if (array == null || !array.isArray()) {
+			return Collections.emptyList();
+		}
+		return MAPPER.convertValue(array, new TypeReference<List<String>>() {
+		});
 	}
 
 	private DistributionManifestV2 getDistributionManifest(ImageRef imageRef) {
@@ -75,7 +147,7 @@ public class DockerRegistry {
 	}
 
 	private WebTarget getRegistryWebTarget(ImageRef imageRef) {
-		if (!webTargets.containsKey(imageRef.getRegistryUrl())) {
+		return webTargets.computeIfAbsent(imageRef.getRegistryUrl(), registryUrl -> {
 
 			ObjectMapper mapper = new ObjectMapper();
 			mapper.registerModule(new JavaTimeModule());
@@ -89,13 +161,50 @@ public class DockerRegistry {
 				String[] credentials = new String(Base64.getDecoder().decode(auth), StandardCharsets.UTF_8).split(":");
 				client.register(HttpAuthenticationFeature.basicBuilder().credentials(credentials[0], credentials[1]));
 			}
-			WebTarget webTarget = client.target(imageRef.getRegistryUrl());
-			webTargets.put(imageRef.getRegistryUrl(), webTarget);
-		}
-		return webTargets.get(imageRef.getRegistryUrl());
+			return client.target(registryUrl);
+		});
 	}
 
 	public static void pullImage(CarnotzetModule module, PullPolicy policy) {
+		pullImage(module, policy, true);
+	}
+
+	/**
+	 * Pulls the images of the given modules according to the rules set by the specified PullPolicy.<br>
+	 * Modules sharing the same image are only pulled once, up to parallelism images are pulled concurrently.<br>
+	 * A failure to pull an image does not prevent the other images from being pulled, all failures are reported together
+	 * once every pull has completed.
+	 *
+	 * @param modules     whose images should be pulled
+	 * @param policy      decides whether an image must be pulled or not
+	 * @param parallelism maximum number of images pulled concurrently, 1 pulls sequentially
+	 */
+	public static void pullImages(Collection<CarnotzetModule> modules, PullPolicy policy, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be greater than 0, got [" + parallelism + "]");
+		}
+		Map<String, List<CarnotzetModule>> modulesByImage = new LinkedHashMap<>();
+		for (CarnotzetModule module : modules) {
+			if (module.getImageName() != null) {
+				modulesByImage.computeIfAbsent(module.getImageName(), image -> new ArrayList<>()).add(module);
+			}
+		}
+		if (modulesByImage.isEmpty()) {
+			return;
+		}
+
+		// Concurrent pulls would interleave their progress bars, so the output of docker is only shown when pulling sequentially.
+		boolean sequential = parallelism == 1 || modulesByImage.size() == 1;
+		Map<String, Runnable> pulls = new LinkedHashMap<>();
+		modulesByImage.forEach((image, imageModules) -> pulls.put(image, () -> pullImage(imageModules.get(0), policy, sequential)));
+		ConcurrentTasks.runAll(pulls, parallelism, "carnotzet-pull-%d", failedImages -> "Failed to pull images " + failedImages
+				+ " used by modules [" + failedImages.stream()
+				.flatMap(image -> modulesByImage.get(image).stream())
+				.map(CarnotzetModule::getName)
+				.collect(Collectors.joining(", ")) + "]");
+	}
+
+	static void pullImage(CarnotzetModule module, PullPolicy policy, boolean inheritIo) {
 
 		String imageName = module.getImageName();
 		if (imageName == null) {
@@ -116,7 +225,14 @@ public class DockerRegistry {
 
 		// pull if needed
 		if (policy.shouldPullImage(module, localTimestamp, registryImageMetadata)) {
-			DefaultCommandRunner.INSTANCE.runCommand("docker", "pull", imageName);
+			if (!inheritIo) {
+				log.info("Pulling image [{}]", imageName);
+			}
+			int exitCode = DefaultCommandRunner.INSTANCE.runCommand(inheritIo, "docker", "pull", imageName);
+			INSTANCE.getMetadataCache().invalidateLocalImage(imageName);
+			if (exitCode != 0) {
+				throw new CarnotzetDefinitionException("docker pull [" + imageName + "] exited with code [" + exitCode + "]");
+			}
 		}
 	}
 
@@ -134,10 +250,9 @@ public class DockerRegistry {
 
 	// returns null if the image doesn't exist on the docker host
 	private static Instant getLocalImageTimestamp(String imageName) {
-		// Use docker inspect
 		try {
-			String isoDatetime = DefaultCommandRunner.INSTANCE.runCommandAndCaptureOutput("docker", "inspect", "-f", "{{.Created}}", imageName);
-			return Instant.from(DateTimeFormatter.ISO_ZONED_DATE_TIME.parse(isoDatetime));
+			LocalImage image = INSTANCE.getLocalImage(imageName);
+			return image == null ? null : image.getCreated();
 		}
 		catch (RuntimeException e) {
 			log.debug("Could not determine timestamp of local image [" + imageName + "], assuming it doesn't exist on the local docker host", e);
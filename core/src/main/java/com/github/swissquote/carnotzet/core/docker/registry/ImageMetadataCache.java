@@ -0,0 +1,209 @@
+package com.github.swissquote.carnotzet.core.docker.registry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.common.hash.Hashing;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of image metadata, shared by the pull policies and the startup wrappers.<br>
+ * Registry metadata is content addressed : image references are mapped to the digest of the image configuration and the metadata
+ * is stored by digest, so that tags of the same image share the same entry. References by digest never expire, tags are resolved
+ * again once the ttl elapsed since they can be moved to another image.<br>
+ * Metadata of local images is only kept in memory for the same ttl, it is invalidated when the image is pulled.<br>
+ * When a cache folder is given, registry metadata is also persisted to disk and reused by the next builds.
+ */
+@Slf4j
+public class ImageMetadataCache {
+
+	public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+	public static final Path DEFAULT_CACHE_FOLDER = Paths.get(System.getProperty("user.home")).resolve(".carnotzet").resolve("image-metadata");
+
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+	private final Path cacheFolder;
+
+	private final Duration ttl;
+
+	private final Map<String, ResolvedReference> references = new ConcurrentHashMap<>();
+
+	private final Map<String, ImageMetaData> metadataByDigest = new ConcurrentHashMap<>();
+
+	private final Map<String, TimedLocalImage> localImages = new ConcurrentHashMap<>();
+
+	/**
+	 * In-memory cache, with the default ttl
+	 */
+	public ImageMetadataCache() {
+		this(null, DEFAULT_TTL);
+	}
+
+	/**
+	 * @param cacheFolder where registry metadata is persisted, null to only keep it in memory
+	 * @param ttl         how long tags and local images are trusted before fetching their metadata again
+	 */
+	public ImageMetadataCache(Path cacheFolder, Duration ttl) {
+		this.cacheFolder = cacheFolder;
+		this.ttl = ttl;
+	}
+
+	/**
+	 * @return the registry metadata of the image, if its reference was resolved less than ttl ago (or is a digest)
+	 */
+	public ImageMetaData getRegistryMetadata(ImageRef imageRef) {
+		String reference = getReference(imageRef);
+		ResolvedReference resolved = references.get(reference);
+		if (resolved == null) {
+			resolved = readFromDisk(referencePath(reference), ResolvedReference.class);
+		}
+		if (resolved == null || !isFresh(imageRef, resolved.getResolvedAt())) {
+			return null;
+		}
+		references.putIfAbsent(reference, resolved);
+		return getRegistryMetadataByDigest(resolved.getDigest());
+	}
+
+	/**
+	 * @param digest of the image configuration (config.digest of the distribution manifest)
+	 * @return the registry metadata of the image, if it has already been fetched
+	 */
+	public ImageMetaData getRegistryMetadataByDigest(String digest) {
+		if (digest == null) {
+			return null;
+		}
+		ImageMetaData metadata = metadataByDigest.get(digest);
+		if (metadata == null) {
+			metadata = readFromDisk(digestPath(digest), ImageMetaData.class);
+			if (metadata != null) {
+				metadataByDigest.putIfAbsent(digest, metadata);
+			}
+		}
+		return metadata;
+	}
+
+	public void putRegistryMetadata(ImageRef imageRef, ImageMetaData metadata) {
+		String digest = metadata.getDistributionManifest().getConfig().getDigest();
+		String reference = getReference(imageRef);
+		ResolvedReference resolved = new ResolvedReference(reference, digest, Instant.now());
+		if (metadataByDigest.putIfAbsent(digest, metadata) == null) {
+			writeToDisk(digestPath(digest), metadata);
+		}
+		references.put(reference, resolved);
+		writeToDisk(referencePath(reference), resolved);
+	}
+
+	/**
+	 * @param imageName the image on the docker host
+	 * @param inspector inspects the image on the docker host, returns null if the image does not exist
+	 * @return the metadata of the local image, null if it does not exist on the docker host
+	 */
+	public LocalImage getLocalImage(String imageName, Function<String, LocalImage> inspector) {
+		TimedLocalImage cached = localImages.get(imageName);
+		if (cached != null && isFresh(null, cached.getInspectedAt())) {
+			return cached.getImage();
+		}
+		LocalImage image = inspector.apply(imageName);
+		if (image == null) {
+			localImages.remove(imageName);
+		} else {
+			localImages.put(imageName, new TimedLocalImage(image, Instant.now()));
+		}
+		return image;
+	}
+
+	/**
+	 * Forgets the metadata of a local image, to be called when the image changed on the docker host (pulled or built)
+	 */
+	public void invalidateLocalImage(String imageName) {
+		localImages.remove(imageName);
+	}
+
+	private boolean isFresh(ImageRef imageRef, Instant fetchedAt) {
+		if (imageRef != null && imageRef.getImage().contains("@")) {
+			// references by digest are immutable
+			return true;
+		}
+		return fetchedAt.plus(ttl).isAfter(Instant.now());
+	}
+
+	private static String getReference(ImageRef imageRef) {
+		if (imageRef.getImage().contains("@")) {
+			return imageRef.getImage();
+		}
+		return imageRef.getImage() + ":" + imageRef.getTag();
+	}
+
+	private Path referencePath(String reference) {
+		return cacheFolder == null ? null
+				: cacheFolder.resolve("references").resolve(Hashing.sha256().hashString(reference, StandardCharsets.UTF_8).toString() + ".json");
+	}
+
+	private Path digestPath(String digest) {
+		return cacheFolder == null ? null : cacheFolder.resolve("digests").resolve(digest.replace(':', '-') + ".json");
+	}
+
+	private static <T> T readFromDisk(Path path, Class<T> type) {
+		if (path == null || !Files.exists(path)) {
+			return null;
+		}
+		try {
+			return MAPPER.readValue(path.toFile(), type);
+		}
+		catch (IOException | RuntimeException e) {
+			log.debug("Could not read image metadata cache entry [" + path + "]", e);
+			return null;
+		}
+	}
+
+	private static void writeToDisk(Path path, Object value) {
+		if (path == null) {
+			return;
+		}
+		try {
+			Path folder = path.toAbsolutePath().getParent();
+			if (folder == null) {
+				return;
+			}
+			Files.createDirectories(folder);
+			// write then move to avoid concurrent readers seeing a partially written entry
+			Path tmp = Files.createTempFile(folder, "entry", ".tmp");
+			MAPPER.writeValue(tmp.toFile(), value);
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException | RuntimeException e) {
+			log.warn("Could not write image metadata cache entry [" + path + "]", e);
+		}
+	}
+
+	@Value
+	private static final class ResolvedReference {
+		private final String reference;
+		private final String digest;
+		private final Instant resolvedAt;
+	}
+
+	@Value
+	private static final class TimedLocalImage {
+		private final LocalImage image;
+		private final Instant inspectedAt;
+	}
+
+}
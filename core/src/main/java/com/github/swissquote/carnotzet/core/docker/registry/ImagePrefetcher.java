@@ -0,0 +1,88 @@
+package com.github.swissquote.carnotzet.core.docker.registry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
+import com.github.swissquote.carnotzet.core.CarnotzetModule;
+import com.github.swissquote.carnotzet.core.runtime.api.PullPolicy;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pulls images in the background as soon as they are known, typically while the modules of the environment are still
+ * being resolved (see Carnotzet#setPredictedImageListener).<br>
+ * Each image is pulled once. Failures are only logged : the image will be pulled again when the container is created.
+ */
+@Slf4j
+public class ImagePrefetcher implements Consumer<CarnotzetModule>, AutoCloseable {
+
+	private final PullPolicy policy;
+
+	private final ExecutorService executor;
+
+	/**
+	 * guarded by "this"
+	 */
+	private final Map<String, Future<?>> pulls = new LinkedHashMap<>();
+
+	/**
+	 * @param policy      decides whether an image must be pulled or not
+	 * @param parallelism maximum number of images pulled concurrently
+	 */
+	public ImagePrefetcher(PullPolicy policy, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be greater than 0, got [" + parallelism + "]");
+		}
+		this.policy = policy;
+		this.executor = Executors.newFixedThreadPool(parallelism,
+				new ThreadFactoryBuilder().setNameFormat("carnotzet-prefetch-%d").setDaemon(true).build());
+	}
+
+	/**
+	 * Schedules the pull of the image of a module, unless the image is already scheduled
+	 */
+	@Override
+	public synchronized void accept(CarnotzetModule module) {
+		String imageName = module.getImageName();
+		if (imageName == null || pulls.containsKey(imageName)) {
+			return;
+		}
+		log.debug("Prefetching image [{}] of module [{}]", imageName, module.getName());
+		pulls.put(imageName, executor.submit(() -> DockerRegistry.pullImage(module, policy, false)));
+	}
+
+	/**
+	 * Waits until all the scheduled pulls are complete
+	 */
+	public void awaitCompletion() {
+		Map<String, Future<?>> scheduled;
+		synchronized (this) {
+			scheduled = new LinkedHashMap<>(pulls);
+		}
+		for (Map.Entry<String, Future<?>> pull : scheduled.entrySet()) {
+			try {
+				pull.getValue().get();
+			}
+			catch (ExecutionException e) {
+				log.warn("Could not prefetch image [" + pull.getKey() + "]", e.getCause());
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CarnotzetDefinitionException(e);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+}
@@ -0,0 +1,17 @@
+package com.github.swissquote.carnotzet.core.docker.registry;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.Value;
+
+/**
+ * Metadata of an image on the docker host
+ */
+@Value
+public class LocalImage {
+	private final String id;
+	private final Instant created;
+	private final List<String> entrypoint;
+	private final List<String> cmd;
+}
@@ -0,0 +1,167 @@
+package com.github.swissquote.carnotzet.core.maven;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyCycle;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.impl.DefaultServiceLocator;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+import org.eclipse.aether.util.repository.SimpleArtifactDescriptorPolicy;
+
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
+import com.google.common.base.Strings;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolves the dependency tree in-process with the maven 3 resolution engine (Aether), using the local repository only.<br>
+ * The resulting tree has the same shape as the output of "mvn dependency:tree -Dverbose" : dependencies that lost the
+ * conflict resolution are kept as omitted nodes, without children.<br>
+ * Resolution fails if a pom file is missing from the local repository.
+ */
+@Slf4j
+public class AetherDependencyTreeResolver {
+
+	private final RepositorySystem repositorySystem;
+
+	public AetherDependencyTreeResolver() {
+		DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
+		locator.setErrorHandler(new DefaultServiceLocator.ErrorHandler() {
+			@Override
+			public void serviceCreationFailed(Class<?> type, Class<?> impl, Throwable exception) {
+				log.warn("Could not create aether service [" + impl.getName() + "]", exception);
+			}
+		});
+		this.repositorySystem = locator.getService(RepositorySystem.class);
+	}
+
+	public Node resolve(CarnotzetModuleCoordinates topLevelModuleId, Path localRepoPath) {
+		DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
+		session.setOffline(true);
+		// the "simple" layout trusts any file present in the local repository, wherever it was downloaded from
+		session.setLocalRepositoryManager(repositorySystem.newLocalRepositoryManager(session,
+				new LocalRepository(localRepoPath.toFile(), "simple")));
+		// fail on missing/invalid poms instead of silently truncating the tree
+		session.setArtifactDescriptorPolicy(new SimpleArtifactDescriptorPolicy(false, false));
+		session.setConfigProperty(ConflictResolver.CONFIG_PROP_VERBOSE, true);
+		session.setSystemProperties(System.getProperties());
+
+		Artifact root = new DefaultArtifact(topLevelModuleId.getGroupId(), topLevelModuleId.getArtifactId(),
+				topLevelModuleId.getClassifier(), "jar", topLevelModuleId.getVersion());
+		CollectRequest request = new CollectRequest();
+		request.setRoot(new Dependency(root, null));
+
+		try {
+			return toTree(repositorySystem.collectDependencies(session, request));
+		}
+		catch (DependencyCollectionException e) {
+			throw new CarnotzetDefinitionException("Could not resolve dependencies of [" + topLevelModuleId + "]", e);
+		}
+	}
+
+	/**
+	 * Converts the result of a dependency collection to a dependency tree with the same shape as the output of
+	 * "mvn dependency:tree -Dverbose".<br>
+	 * The collection must have been done with ConflictResolver.CONFIG_PROP_VERBOSE enabled in the repository session.
+	 *
+	 * @param result the result of a dependency collection
+	 * @return the dependency tree
+	 */
+	public static Node toTree(CollectResult result) {
+		if (!result.getExceptions().isEmpty()) {
+			throw new CarnotzetDefinitionException("Could not resolve dependencies of [" + result.getRoot().getArtifact() + "]",
+					result.getExceptions().get(0));
+		}
+		Node tree = toNode(result.getRoot(), new HashSet<>());
+		result.getCycles().forEach(cycle -> addCycle(tree, cycle));
+		return tree;
+	}
+
+	/**
+	 * Converts an aether dependency graph to a tree.<br>
+	 * If the graph is cyclic, the node that closes a cycle is converted to an omitted node so that the topological
+	 * sorter sees (and reports) the cycle.
+	 *
+	 * @param ancestors artifacts on the path from the root to the converted node
+	 */
+	private static Node toNode(DependencyNode dependencyNode, Set<GA> ancestors) {
+		Artifact artifact = dependencyNode.getArtifact();
+		String scope = dependencyNode.getDependency() == null ? null : Strings.emptyToNull(dependencyNode.getDependency().getScope());
+		GA ga = new GA(artifact.getGroupId(), artifact.getArtifactId());
+		boolean cycle = ancestors.contains(ga);
+		boolean omitted = cycle || dependencyNode.getData().get(ConflictResolver.NODE_DATA_WINNER) != null;
+		Node node = new Node(
+				artifact.getGroupId(),
+				artifact.getArtifactId(),
+				artifact.getExtension(),
+				Strings.emptyToNull(artifact.getClassifier()),
+				artifact.getBaseVersion(),
+				scope,
+				null,
+				omitted,
+				null,
+				new LinkedList<>());
+		if (cycle) {
+			return node;
+		}
+		ancestors.add(ga);
+		for (DependencyNode child : dependencyNode.getChildren()) {
+			node.addChildNode(toNode(child, ancestors));
+		}
+		ancestors.remove(ga);
+		return node;
+	}
+
+	/**
+	 * Aether removes the dependencies that close cycles from the graph, they are added back as omitted nodes so that the
+	 * topological sorter sees (and reports) the cycle.
+	 */
+	private static void addCycle(Node tree, DependencyCycle cycle) {
+		List<Dependency> path = new ArrayList<>(cycle.getPrecedingDependencies());
+		path.addAll(cycle.getCyclicDependencies());
+		// the path starts with the root of the tree when it has a dependency, and ends with the dependency closing the cycle
+		int start = 0;
+		if (path.size() > 1
+				&& tree.getGroupId().equals(path.get(0).getArtifact().getGroupId())
+				&& tree.getArtifactId().equals(path.get(0).getArtifact().getArtifactId())) {
+			start = 1;
+		}
+		Node current = tree;
+		for (Dependency dependency : path.subList(start, path.size() - 1)) {
+			current = findChild(current, dependency.getArtifact());
+			if (current == null) {
+				return;
+			}
+		}
+		Artifact closing = path.get(path.size() - 1).getArtifact();
+		if (findChild(current, closing) == null) {
+			current.addChildNode(new Node(closing.getGroupId(), closing.getArtifactId(), closing.getExtension(),
+					Strings.emptyToNull(closing.getClassifier()), closing.getBaseVersion(), path.get(path.size() - 1).getScope(),
+					null, true, null, new LinkedList<>()));
+		}
+	}
+
+	private static Node findChild(Node node, Artifact artifact) {
+		return node.getChildNodes().stream()
+				.filter(child -> !child.isOmitted())
+				.filter(child -> child.getGroupId().equals(artifact.getGroupId()) && child.getArtifactId().equals(artifact.getArtifactId()))
+				.findFirst()
+				.orElse(null);
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.github.swissquote.carnotzet.core.maven;
+
+import java.nio.file.Path;
+
+/**
+ * Provides the dependency tree of modules, for environments where it is already known (typically inside a maven build),
+ * so that carnotzet does not have to resolve it again.<br>
+ * The tree must have the same shape as the output of "mvn dependency:tree -Dverbose" : dependencies that lost the
+ * conflict resolution must be present, marked as omitted.
+ */
+public interface DependencyGraphProvider {
+
+	/**
+	 * @param topLevelModuleId the module at the root of the environment
+	 * @return the dependency tree, or null if this provider does not know it (carnotzet then resolves it)
+	 */
+	Node getDependencyTree(CarnotzetModuleCoordinates topLevelModuleId);
+
+	/**
+	 * @return the local maven repository containing the jars of the modules, or null to let carnotzet find it
+	 */
+	default Path getLocalRepositoryPath() {
+		return null;
+	}
+
+}
@@ -8,7 +8,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -36,6 +40,23 @@ public class MavenDependencyResolver {
 
 	private final Path resourcesPath;
 
+	/**
+	 * null when the resolution cache is disabled
+	 */
+	private final ResolutionCache resolutionCache;
+
+	/**
+	 * when true, the dependency tree is always computed by invoking mvn dependency:tree in a separate process
+	 */
+	private final boolean forkMaven;
+
+	/**
+	 * null if the dependency tree must be resolved by carnotzet
+	 */
+	private final DependencyGraphProvider dependencyGraphProvider;
+
+	private AetherDependencyTreeResolver inProcessResolver;
+
 	private final Invoker maven = new DefaultInvoker();
 
 	private Path localRepoPath;
@@ -44,8 +65,39 @@ public class MavenDependencyResolver {
 
 	public List<CarnotzetModule> resolve(CarnotzetModuleCoordinates topLevelModuleId, Boolean failOnCycle) {
 		log.debug("Resolving module dependencies");
+		if (dependencyGraphProvider != null) {
+			if (dependencyGraphProvider.getLocalRepositoryPath() != null) {
+				localRepoPath = dependencyGraphProvider.getLocalRepositoryPath();
+			}
+			Node tree = dependencyGraphProvider.getDependencyTree(topLevelModuleId);
+			if (tree != null) {
+				log.debug("Using dependency tree provided by [{}]", dependencyGraphProvider.getClass().getName());
+				return toModules(tree, topLevelModuleId, failOnCycle);
+			}
+		}
 		Path pomFile = getPomFile(topLevelModuleId);
-		Node tree = resolveDependencyTree(pomFile);
+		if (resolutionCache != null) {
+			Optional<List<CarnotzetModule>> cached = resolutionCache.get(topLevelModuleId, failOnCycle, pomFile);
+			if (cached.isPresent()) {
+				log.debug("Module dependencies found in resolution cache");
+				return cached.get();
+			}
+		}
+		Node tree = resolveDependencyTree(topLevelModuleId, pomFile);
+		// collected before sorting, the topological sorter rewires the tree
+		Optional<Set<Path>> cacheInputs = resolutionCache == null ? Optional.empty() : ResolutionCacheInputs.collect(tree, this::getPomPath);
+		List<CarnotzetModule> result = toModules(tree, topLevelModuleId, failOnCycle);
+		if (resolutionCache != null) {
+			if (cacheInputs.isPresent()) {
+				resolutionCache.put(topLevelModuleId, failOnCycle, pomFile, result, cacheInputs.get());
+			} else {
+				resolutionCache.remove(topLevelModuleId, failOnCycle);
+			}
+		}
+		return result;
+	}
+
+	private List<CarnotzetModule> toModules(Node tree, CarnotzetModuleCoordinates topLevelModuleId, Boolean failOnCycle) {
 		log.debug("Computing topological ordering of GAs in full dependency tree before resolution (maven2)");
 		List<Node> topology = topologicalSorter.sort(tree, failOnCycle);
 		topology = filterInterestingNodes(topology);
@@ -57,10 +109,14 @@ public class MavenDependencyResolver {
 
 	private List<Node> filterInterestingNodes(List<Node> topology) {
 		return topology.stream()
-				.filter(n -> n.getScope() == null || "compile".equals(n.getScope()) || "runtime".equals(n.getScope()))
+				.filter(this::isInterestingNode)
 				.collect(Collectors.toList());
 	}
 
+	private boolean isInterestingNode(Node n) {
+		return n.getScope() == null || "compile".equals(n.getScope()) || "runtime".equals(n.getScope());
+	}
+
 	private void ensureJarFilesAreDownloaded(List<CarnotzetModule> result, CarnotzetModuleCoordinates topLevelModuleId) {
 		for (CarnotzetModule module : result) {
 			if (!module.getJarPath().toFile().exists()) {
@@ -86,11 +142,7 @@ public class MavenDependencyResolver {
 		List<CarnotzetModule> result = new ArrayList<>();
 
 		for (Node artifact : nodes) {
-			CarnotzetModuleCoordinates coord = new CarnotzetModuleCoordinates(
-					artifact.getGroupId(),
-					artifact.getArtifactId(),
-					artifact.getVersion(),
-					artifact.getClassifier());
+			CarnotzetModuleCoordinates coord = toCoordinates(artifact);
 			String name = moduleNameProvider.apply(coord);
 			if (name == null) {
 				continue;
@@ -100,6 +152,7 @@ public class MavenDependencyResolver {
 					.name(name)
 					.topLevelModuleName(topLevelModuleName)
 					.jarPath(getJarFile(coord))
+					.dependencies(getModuleDependencies(artifact))
 					.build();
 			result.add(module);
 		}
@@ -108,6 +161,38 @@ public class MavenDependencyResolver {
 
 	}
 
+	private CarnotzetModuleCoordinates toCoordinates(Node artifact) {
+		return new CarnotzetModuleCoordinates(
+				artifact.getGroupId(),
+				artifact.getArtifactId(),
+				artifact.getVersion(),
+				artifact.getClassifier());
+	}
+
+	/**
+	 * Finds the names of the closest carnotzet modules in the dependencies of a node.
+	 * Dependencies which are not carnotzet modules are traversed, so that their own carnotzet dependencies are found.
+	 */
+	private Set<String> getModuleDependencies(Node node) {
+		Set<String> result = new LinkedHashSet<>();
+		collectModuleDependencies(node, result, new HashSet<>());
+		return result;
+	}
+
+	private void collectModuleDependencies(Node node, Set<String> result, Set<GA> visited) {
+		for (Node child : node.getChildNodes()) {
+			if (!isInterestingNode(child) || !visited.add(new GA(child.getGroupId(), child.getArtifactId()))) {
+				continue;
+			}
+			String name = moduleNameProvider.apply(toCoordinates(child));
+			if (name == null) {
+				collectModuleDependencies(child, result, visited);
+			} else {
+				result.add(name);
+			}
+		}
+	}
+
 	private Path getJarFile(CarnotzetModuleCoordinates artifact) {
 		Path localRepoPath = getLocalRepoPath();
 		return localRepoPath
@@ -125,14 +210,16 @@ public class MavenDependencyResolver {
 		return jarName + ".jar";
 	}
 
-	private Path getPomFile(CarnotzetModuleCoordinates artifact) {
-		Path localRepoPath = getLocalRepoPath();
-
-		Path localFile = localRepoPath
+	private Path getPomPath(CarnotzetModuleCoordinates artifact) {
+		return getLocalRepoPath()
 				.resolve(artifact.getGroupId().replace(".", "/"))
 				.resolve(artifact.getArtifactId())
 				.resolve(artifact.getVersion())
 				.resolve(artifact.getArtifactId() + "-" + artifact.getVersion() + ".pom");
+	}
+
+	private Path getPomFile(CarnotzetModuleCoordinates artifact) {
+		Path localFile = getPomPath(artifact);
 		if (!localFile.toFile().exists()) {
 			log.debug("pom file [{}] not found. invoking maven dependency:get to download it", localFile);
 			String gav = artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getVersion();
@@ -171,11 +258,30 @@ public class MavenDependencyResolver {
 		}
 	}
 
+	/**
+	 * Resolves the dependency tree in-process from the local repository. Maven is invoked in a separate process
+	 * if configured to do so, or if some artifacts are missing from the local repository and must be downloaded.
+	 */
+	private Node resolveDependencyTree(CarnotzetModuleCoordinates topLevelModuleId, Path pomFile) {
+		if (!forkMaven) {
+			try {
+				if (inProcessResolver == null) {
+					inProcessResolver = new AetherDependencyTreeResolver();
+				}
+				return inProcessResolver.resolve(topLevelModuleId, getLocalRepoPath());
+			}
+			catch (CarnotzetDefinitionException e) {
+				log.debug("In-process dependency resolution failed, invoking maven dependency:tree", e);
+			}
+		}
+		return resolveDependencyTreeWithMaven(pomFile);
+	}
+
 	/**
 	 * Relies on mvn dependency:tree -Dverbose to get a full dependency tree, including omitted ones.
 	 * This uses maven 2 and may be inconsistent with maven 3 resolved dependencies.
 	 */
-	private Node resolveDependencyTree(Path pomFile) {
+	private Node resolveDependencyTreeWithMaven(Path pomFile) {
 		Path treePath = resourcesPath.resolve("tree.txt");
 		String command = "org.apache.maven.plugins:maven-dependency-plugin:2.10:tree -Dverbose"
 				+ " -f " + pomFile.toAbsolutePath().toString()
@@ -0,0 +1,191 @@
+package com.github.swissquote.carnotzet.core.maven;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.swissquote.carnotzet.core.CarnotzetModule;
+import com.google.common.hash.Hashing;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persistent cache of resolved environments, it avoids invoking maven when nothing changed since the previous resolution.<br>
+ * There is one entry per top level module and configuration. An entry is only used when the content of the top level pom.xml
+ * is the same and when none of the pom and jar files involved in the resolution changed (size and last modification time).<br>
+ * Resolutions which depend on SNAPSHOT or version ranges are not cached (see ResolutionCacheInputs), the remote repositories
+ * could provide other artifacts for them at any time.
+ */
+@Slf4j
+public class ResolutionCache {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	// changed when the entries written by previous versions must not be used anymore
+	private static final int FORMAT_VERSION = 2;
+
+	private final Path cacheFolder;
+
+	private final String configurationKey;
+
+	/**
+	 * @param configurationKey identifies the configuration that influences the resolution result (such as module name patterns)
+	 */
+	public ResolutionCache(String configurationKey) {
+		this(Paths.get(System.getProperty("user.home")).resolve(".carnotzet").resolve("resolution-cache"), configurationKey);
+	}
+
+	public ResolutionCache(Path cacheFolder, String configurationKey) {
+		this.cacheFolder = cacheFolder;
+		this.configurationKey = configurationKey;
+	}
+
+	/**
+	 * @param topLevelModuleId the module at the root of the environment
+	 * @param failOnCycle      the cycle detection setting used for the resolution
+	 * @param topLevelPom      pom file of the top level module, an entry is only valid if the content of this file did not change
+	 * @return the cached modules, if the cache entry exists and is still valid
+	 */
+	public Optional<List<CarnotzetModule>> get(CarnotzetModuleCoordinates topLevelModuleId, Boolean failOnCycle, Path topLevelPom) {
+		Path entryPath = getEntryPath(topLevelModuleId, failOnCycle);
+		if (!Files.exists(entryPath)) {
+			return Optional.empty();
+		}
+		try {
+			Entry entry = MAPPER.readValue(entryPath.toFile(), Entry.class);
+			if (!entry.getPomDigest().equals(digest(topLevelPom))) {
+				log.debug("Resolution cache entry [{}] is outdated, top level pom changed", entryPath);
+				return Optional.empty();
+			}
+			for (FileFingerprint file : entry.getFiles()) {
+				if (!file.equals(FileFingerprint.of(Paths.get(file.getPath())))) {
+					log.debug("Resolution cache entry [{}] is outdated, [{}] changed", entryPath, file.getPath());
+					return Optional.empty();
+				}
+			}
+			log.debug("Using resolution cache entry [{}]", entryPath);
+			return Optional.of(entry.getModules().stream().map(CachedModule::toModule).collect(Collectors.toList()));
+		}
+		catch (IOException | RuntimeException e) {
+			log.debug("Could not read resolution cache entry [" + entryPath + "]", e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Stores the result of a resolution
+	 *
+	 * @param topLevelModuleId the module at the root of the environment
+	 * @param failOnCycle      the cycle detection setting used for the resolution
+	 * @param topLevelPom      pom file of the top level module
+	 * @param modules          the resolved modules
+	 * @param inputs           pom and jar files that were involved in the resolution, the entry is discarded if one of them changes
+	 */
+	public void put(CarnotzetModuleCoordinates topLevelModuleId, Boolean failOnCycle, Path topLevelPom,
+			List<CarnotzetModule> modules, Collection<Path> inputs) {
+		Path entryPath = getEntryPath(topLevelModuleId, failOnCycle);
+		try {
+			Set<Path> files = new LinkedHashSet<>(inputs);
+			modules.forEach(m -> files.add(m.getJarPath()));
+			Entry entry = new Entry(
+					digest(topLevelPom),
+					modules.stream().map(CachedModule::of).collect(Collectors.toList()),
+					files.stream().map(FileFingerprint::of).collect(Collectors.toList()));
+
+			Files.createDirectories(cacheFolder);
+			// write then move to avoid concurrent readers seeing a partially written entry
+			Path tmp = Files.createTempFile(cacheFolder, "entry", ".tmp");
+			MAPPER.writeValue(tmp.toFile(), entry);
+			Files.move(tmp, entryPath, StandardCopyOption.REPLACE_EXISTING);
+			log.debug("Stored resolution cache entry [{}]", entryPath);
+		}
+		catch (IOException | RuntimeException e) {
+			log.warn("Could not write resolution cache entry [" + entryPath + "]", e);
+		}
+	}
+
+	/**
+	 * Removes the entry of a resolution which must not be cached anymore
+	 */
+	public void remove(CarnotzetModuleCoordinates topLevelModuleId, Boolean failOnCycle) {
+		Path entryPath = getEntryPath(topLevelModuleId, failOnCycle);
+		try {
+			if (Files.deleteIfExists(entryPath)) {
+				log.debug("Removed resolution cache entry [{}]", entryPath);
+			}
+		}
+		catch (IOException e) {
+			log.warn("Could not remove resolution cache entry [" + entryPath + "]", e);
+		}
+	}
+
+	private Path getEntryPath(CarnotzetModuleCoordinates topLevelModuleId, Boolean failOnCycle) {
+		String key = FORMAT_VERSION + "|" + topLevelModuleId + "|" + failOnCycle + "|" + configurationKey;
+		return cacheFolder.resolve(Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString() + ".json");
+	}
+
+	private static String digest(Path file) throws IOException {
+		return Hashing.sha256().hashBytes(Files.readAllBytes(file)).toString();
+	}
+
+	@Value
+	private static final class Entry {
+		private final String pomDigest;
+		private final List<CachedModule> modules;
+		private final List<FileFingerprint> files;
+	}
+
+	@Value
+	private static final class CachedModule {
+		private final String groupId;
+		private final String artifactId;
+		private final String version;
+		private final String classifier;
+		private final String name;
+		private final String topLevelModuleName;
+		private final String jarPath;
+		private final List<String> dependencies;
+
+		private static CachedModule of(CarnotzetModule module) {
+			CarnotzetModuleCoordinates id = module.getId();
+			return new CachedModule(id.getGroupId(), id.getArtifactId(), id.getVersion(), id.getClassifier(),
+					module.getName(), module.getTopLevelModuleName(), module.getJarPath().toString(),
+					module.getDependencies() == null ? null : new ArrayList<>(module.getDependencies()));
+		}
+
+		private CarnotzetModule toModule() {
+			return CarnotzetModule.builder()
+					.id(new CarnotzetModuleCoordinates(groupId, artifactId, version, classifier))
+					.name(name)
+					.topLevelModuleName(topLevelModuleName)
+					.jarPath(Paths.get(jarPath))
+					.dependencies(dependencies == null ? null : new LinkedHashSet<>(dependencies))
+					.build();
+		}
+	}
+
+	@Value
+	private static final class FileFingerprint {
+		private final String path;
+		private final long size;
+		private final long lastModified;
+
+		// missing files have a size and last modified time of 0
+		private static FileFingerprint of(Path path) {
+			return new FileFingerprint(path.toString(), path.toFile().length(), path.toFile().lastModified());
+		}
+	}
+
+}
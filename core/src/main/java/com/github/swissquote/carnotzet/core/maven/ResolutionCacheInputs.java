@@ -0,0 +1,209 @@
+package com.github.swissquote.carnotzet.core.maven;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Repository;
+import org.apache.maven.model.building.DefaultModelBuilderFactory;
+import org.apache.maven.model.building.DefaultModelBuildingRequest;
+import org.apache.maven.model.building.FileModelSource;
+import org.apache.maven.model.building.ModelBuilder;
+import org.apache.maven.model.building.ModelBuildingException;
+import org.apache.maven.model.building.ModelBuildingRequest;
+import org.apache.maven.model.building.ModelCache;
+import org.apache.maven.model.building.ModelSource;
+import org.apache.maven.model.resolution.ModelResolver;
+import org.apache.maven.model.resolution.UnresolvableModelException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Finds the files which determine the result of a resolution, so that the resolution cache can tell when an entry is outdated :
+ * the pom files of all the artifacts of the dependency tree, of their parents and of the boms they import. The effective model
+ * of each pom is built with maven-model-builder from the local repository, so that parents, profiles, properties and imported
+ * boms are found the same way maven finds them.<br>
+ * A resolution must not be cached when the tree depends on SNAPSHOT or version ranges, which resolve to other artifacts when the
+ * remote repositories are updated, or when the effective model of one of the pom files cannot be built.
+ */
+@Slf4j
+public final class ResolutionCacheInputs {
+
+	// SNAPSHOT versions once deployed, such as 1.0-20180101.120000-1
+	private static final Pattern TIMESTAMPED_SNAPSHOT = Pattern.compile(".*-\\d{8}\\.\\d{6}-\\d+");
+
+	private final Function<CarnotzetModuleCoordinates, Path> pomPaths;
+
+	private final ModelBuilder modelBuilder = new DefaultModelBuilderFactory().newInstance();
+
+	// shared by the builds, so that the common parents and boms are only read once
+	private final ModelCache modelCache = new MapModelCache();
+
+	private final Properties systemProperties = new Properties();
+
+	// parents and imported boms resolved by the model builder
+	private final Set<Path> resolvedPomFiles = new LinkedHashSet<>();
+
+	// reason why the resolution must not be cached, null if it can be
+	private String notCacheable;
+
+	private ResolutionCacheInputs(Function<CarnotzetModuleCoordinates, Path> pomPaths) {
+		this.pomPaths = pomPaths;
+		systemProperties.putAll(System.getProperties());
+		// like the maven command line, so that ${env.X} expressions are resolved
+		System.getenv().forEach((name, value) -> systemProperties.setProperty("env." + name, value));
+	}
+
+	/**
+	 * @param tree     resolved dependency tree, its root is the top level module
+	 * @param pomPaths location of the pom files in the local repository
+	 * @return the pom files which determine the result of the resolution, empty if the result must not be cached
+	 */
+	public static Optional<Set<Path>> collect(Node tree, Function<CarnotzetModuleCoordinates, Path> pomPaths) {
+		return new ResolutionCacheInputs(pomPaths).collect(tree);
+	}
+
+	private Optional<Set<Path>> collect(Node tree) {
+		Set<Path> result = new LinkedHashSet<>();
+		Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<Node> toVisit = new ArrayDeque<>();
+		toVisit.push(tree);
+		while (!toVisit.isEmpty() && notCacheable == null) {
+			Node node = toVisit.pop();
+			if (!visited.add(node)) {
+				continue;
+			}
+			// the top level pom is compared by content, only its dependencies may change remotely
+			if (node != tree && isSnapshot(node.getVersion())) {
+				notCacheable = "it depends on SNAPSHOT [" + node.getGroupId() + ":" + node.getArtifactId() + ":" + node.getVersion() + "]";
+				break;
+			}
+			Path pomFile = pomPaths.apply(new CarnotzetModuleCoordinates(node.getGroupId(), node.getArtifactId(), node.getVersion()));
+			result.add(pomFile);
+			checkEffectiveModel(pomFile);
+			node.getChildNodes().forEach(toVisit::push);
+		}
+		if (notCacheable != null) {
+			log.debug("Resolution of [{}:{}:{}] is not cached, {}", tree.getGroupId(), tree.getArtifactId(), tree.getVersion(), notCacheable);
+			return Optional.empty();
+		}
+		result.addAll(resolvedPomFiles);
+		return Optional.of(result);
+	}
+
+	private void checkEffectiveModel(Path pomFile) {
+		DefaultModelBuildingRequest request = new DefaultModelBuildingRequest();
+		request.setModelSource(new FileModelSource(pomFile.toFile()));
+		request.setValidationLevel(ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL);
+		request.setProcessPlugins(false);
+		request.setTwoPhaseBuilding(false);
+		request.setSystemProperties(systemProperties);
+		request.setModelResolver(new LocalModelResolver());
+		request.setModelCache(modelCache);
+		Model model;
+		try {
+			model = modelBuilder.build(request).getEffectiveModel();
+		}
+		catch (ModelBuildingException e) {
+			log.debug("Could not build the effective model of [" + pomFile + "]", e);
+			if (notCacheable == null) {
+				notCacheable = "the effective model of [" + pomFile + "] cannot be built : " + e.getMessage();
+			}
+			return;
+		}
+		List<Dependency> dependencies = new ArrayList<>(model.getDependencies());
+		if (model.getDependencyManagement() != null) {
+			dependencies.addAll(model.getDependencyManagement().getDependencies());
+		}
+		for (Dependency dependency : dependencies) {
+			if (isRange(dependency.getVersion()) && notCacheable == null) {
+				notCacheable = "[" + pomFile + "] uses the version range [" + dependency.getVersion() + "] for [" + dependency.getGroupId()
+						+ ":" + dependency.getArtifactId() + "]";
+			}
+		}
+	}
+
+	private static boolean isSnapshot(String version) {
+		return version != null && (version.endsWith("SNAPSHOT") || TIMESTAMPED_SNAPSHOT.matcher(version).matches());
+	}
+
+	private static boolean isRange(String version) {
+		return version != null && (version.startsWith("[") || version.startsWith("("));
+	}
+
+	/**
+	 * Resolves the parents and the imported boms from the local repository, and records them as inputs of the resolution
+	 */
+	private final class LocalModelResolver implements ModelResolver {
+
+		@Override
+		public ModelSource resolveModel(String groupId, String artifactId, String version) throws UnresolvableModelException {
+			String gav = groupId + ":" + artifactId + ":" + version;
+			if (isRange(version)) {
+				notCacheable = "it uses the version range [" + gav + "]";
+				throw new UnresolvableModelException("Version ranges are not resolved", groupId, artifactId, version);
+			}
+			if (isSnapshot(version) && notCacheable == null) {
+				notCacheable = "it depends on SNAPSHOT [" + gav + "]";
+			}
+			Path pomFile = pomPaths.apply(new CarnotzetModuleCoordinates(groupId, artifactId, version));
+			if (!pomFile.toFile().exists()) {
+				throw new UnresolvableModelException("Pom file [" + pomFile + "] not found in the local repository", groupId, artifactId,
+						version);
+			}
+			resolvedPomFiles.add(pomFile);
+			return new FileModelSource(pomFile.toFile());
+		}
+
+		@Override
+		public ModelSource resolveModel(Parent parent) throws UnresolvableModelException {
+			return resolveModel(parent.getGroupId(), parent.getArtifactId(), parent.getVersion());
+		}
+
+		@Override
+		public void addRepository(Repository repository) {
+			// local repository only
+		}
+
+		@Override
+		public void addRepository(Repository repository, boolean replace) {
+			// local repository only
+		}
+
+		@Override
+		public ModelResolver newCopy() {
+			return this;
+		}
+	}
+
+	private static final class MapModelCache implements ModelCache {
+
+		private final Map<String, Object> entries = new HashMap<>();
+
+		@Override
+		public void put(String groupId, String artifactId, String version, String tag, Object data) {
+			entries.put(groupId + ":" + artifactId + ":" + version + ":" + tag, data);
+		}
+
+		@Override
+		public Object get(String groupId, String artifactId, String version, String tag) {
+			return entries.get(groupId + ":" + artifactId + ":" + version + ":" + tag);
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.github.swissquote.carnotzet.core.maven;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * Files of the expanded jars, indexed in a single walk of the expanded jars folder.<br>
+ * The files of each module are grouped by the service they configure (the first folder of their path in the module),
+ * which allows to find the merges and overrides of a service without walking the module again.
+ */
+final class ResourcesIndex {
+
+	private static final ModuleResources NO_RESOURCES = new ModuleResources();
+
+	private final Map<String, ModuleResources> modules;
+
+	private ResourcesIndex(Map<String, ModuleResources> modules) {
+		this.modules = modules;
+	}
+
+	/**
+	 * @param expandedJars folder containing one folder per module
+	 * @param maxDepth     maximum depth of the files inside of a module folder
+	 */
+	static ResourcesIndex build(Path expandedJars, int maxDepth) throws IOException {
+		Map<String, ModuleResources> modules = new HashMap<>();
+		if (!expandedJars.toFile().exists()) {
+			return new ResourcesIndex(modules);
+		}
+		try (Stream<Path> paths = Files.walk(expandedJars, maxDepth + 1)) {
+			paths.forEach(path -> {
+				Path relative = expandedJars.relativize(path); // ${module}/${service}/path/to/file
+				if (relative.getNameCount() < 2) {
+					return;
+				}
+				ModuleResources module = modules.computeIfAbsent(relative.getName(0).toString(), name -> new ModuleResources());
+				Path moduleRelative = relative.subpath(1, relative.getNameCount()); // ${service}/path/to/file
+				if (moduleRelative.getNameCount() == 1) {
+					module.rootEntries.add(path);
+				}
+				if (!Files.isRegularFile(path)) {
+					return;
+				}
+				if (path.toString().endsWith(".merge")) {
+					Path target = Paths.get(moduleRelative.toString().replace(".merge", ""));
+					module.merges.computeIfAbsent(target.getName(0).toString(), service -> new ArrayList<>())
+							.add(new ResourceFile(path, target));
+				} else {
+					module.overrides.computeIfAbsent(moduleRelative.getName(0).toString(), service -> new ArrayList<>())
+							.add(new ResourceFile(path, moduleRelative));
+				}
+			});
+		}
+		return new ResourcesIndex(modules);
+	}
+
+	ModuleResources getModuleResources(String moduleName) {
+		return modules.getOrDefault(moduleName, NO_RESOURCES);
+	}
+
+	@Getter
+	static final class ModuleResources {
+		/**
+		 * files and folders at the root of the module
+		 */
+		private final List<Path> rootEntries = new ArrayList<>();
+		/**
+		 * merge files, by the service id they configure
+		 */
+		private final Map<String, List<ResourceFile>> merges = new LinkedHashMap<>();
+		/**
+		 * other files, by the service id they configure
+		 */
+		private final Map<String, List<ResourceFile>> overrides = new LinkedHashMap<>();
+	}
+
+	@Value
+	static class ResourceFile {
+		/**
+		 * the file in the expanded jar
+		 */
+		private final Path source;
+		/**
+		 * path of the configured file, relative to the resolved resources folder : ${service}/path/to/file
+		 */
+		private final Path target;
+	}
+
+}
@@ -3,26 +3,50 @@ package com.github.swissquote.carnotzet.core.maven;
 import static java.nio.file.Files.exists;
 import static java.nio.file.Files.find;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
 import java.util.function.BiPredicate;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
 
 import org.apache.commons.io.FileUtils;
 
+import com.github.swissquote.carnotzet.core.CarnotzetConfig;
 import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
 import com.github.swissquote.carnotzet.core.CarnotzetModule;
 import com.github.swissquote.carnotzet.core.config.FileMerger;
+import com.github.swissquote.carnotzet.core.config.PropertiesCache;
+import com.github.swissquote.carnotzet.core.maven.ResourcesIndex.ModuleResources;
+import com.github.swissquote.carnotzet.core.maven.ResourcesIndex.ResourceFile;
+import com.github.swissquote.carnotzet.core.util.ConcurrentTasks;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.lingala.zip4j.core.ZipFile;
 import net.lingala.zip4j.exception.ZipException;
@@ -32,6 +56,7 @@ import net.lingala.zip4j.exception.ZipException;
 public class ResourcesManager {
 
 	private static final int FIND_MAX_DEPTH = 200;
+	private static final Set<String> CARNOTZET_FOLDERS = ImmutableSet.of("files", "env", "welcome");
 
 	@Getter
 	private final Path resourcesRoot;
@@ -39,6 +64,48 @@ public class ResourcesManager {
 	private final Path resolved;
 	private final Path topLevelModuleResourcesPath;
 	private final ServiceLoader<FileMerger> fileMergers;
+	private final Path extractionManifest;
+
+	/**
+	 * When true, only the modules that changed since the previous extraction are extracted again.
+	 * Ignored when linkResources is true.
+	 */
+	@Setter
+	private boolean incrementalExtraction;
+
+	/**
+	 * Maximum number of module jars extracted concurrently, defaults to 1
+	 */
+	@Setter
+	private int extractionParallelism = 1;
+
+	/**
+	 * When true, only the resources used by carnotzet are extracted from module jars (see isCarnotzetResource)
+	 */
+	@Setter
+	private boolean selectiveExtraction;
+
+	/**
+	 * Names of the properties files of the modules, used by selective extraction
+	 */
+	@Setter
+	private List<String> propFileNames = CarnotzetConfig.DEFAULT_PROP_FILE_NAMES;
+
+	/**
+	 * When true, resolved files are hard links to the files of the expanded jars instead of copies, if the file system
+	 * supports it. Files rewritten by a FileMerger are copied before being modified.<br>
+	 * All modules are then extracted every time : containers writing to linked files modify the expanded jars.
+	 */
+	@Setter
+	private boolean linkResources;
+
+	private boolean linksUnsupported;
+
+	/**
+	 * Properties files read from the resources, entries are invalidated when the resources are rewritten
+	 */
+	@Getter
+	private final PropertiesCache propertiesCache = new PropertiesCache();
 
 	public ResourcesManager(Path resourcesRoot, Path topLevelModuleResourcesPath) {
 		this.resourcesRoot = resourcesRoot;
@@ -46,6 +113,7 @@ public class ResourcesManager {
 		this.resolved = resourcesRoot.resolve("resolved");
 		this.topLevelModuleResourcesPath = topLevelModuleResourcesPath;
 		this.fileMergers = ServiceLoader.load(FileMerger.class);
+		this.extractionManifest = resourcesRoot.resolve("expanded-jars.properties");
 	}
 
 	public Path getResolvedModuleResourcesPath(CarnotzetModule module) {
@@ -64,32 +132,200 @@ public class ResourcesManager {
 	 * @param modules the list of modules to extract
 	 */
 	public void extractResources(List<CarnotzetModule> modules) {
+		extractResources(modules, null);
+	}
+
+	/**
+	 * Same as extractResources(modules), but notifies a listener as soon as the resources of each module are available in
+	 * resourcesRoot/expanded-jars/${module}, the listener may be invoked concurrently when modules are extracted concurrently.
+	 *
+	 * @param modules                 the list of modules to extract
+	 * @param extractedModuleListener invoked with each module once its resources are extracted, may be null
+	 */
+	public void extractResources(List<CarnotzetModule> modules, Consumer<CarnotzetModule> extractedModuleListener) {
 
 		try {
+			if (incrementalExtraction && !linkResources) {
+				extractChangedResources(modules, extractedModuleListener);
+				return;
+			}
+			if (incrementalExtraction) {
+				// containers may have written to the expanded jars through the links, the manifest cannot tell
+				log.debug("Resolved resources are linked to the expanded jars, extracting all modules");
+			}
 			log.debug("Extracting jars resources to [{}]", resourcesRoot);
+			propertiesCache.invalidate(resourcesRoot);
 			FileUtils.deleteDirectory(resourcesRoot.toFile());
 			if (!expandedJars.toFile().mkdirs()) {
 				throw new CarnotzetDefinitionException("Could not create directory [" + resourcesRoot + "]");
 			}
-			String topLevelModuleName = modules.get(0).getTopLevelModuleName();
+			extractModulesResources(modules, modules.get(0).getTopLevelModuleName(), extractedModuleListener);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Failed to copy module resources " + ex, ex);
+		}
+	}
+
+	/**
+	 * Same as a full extraction, but the modules whose jar (and source resources for the top level module) did not change
+	 * since the previous extraction are not extracted again.
+	 */
+	private void extractChangedResources(List<CarnotzetModule> modules, Consumer<CarnotzetModule> extractedModuleListener)
+			throws IOException {
+		log.debug("Extracting changed jars resources to [{}]", resourcesRoot);
+		Properties previous = readExtractionManifest();
+		// the manifest is only written back once the extraction is complete
+		Files.deleteIfExists(extractionManifest);
+		deleteAllResourcesButExpandedJars();
+		if (!expandedJars.toFile().exists() && !expandedJars.toFile().mkdirs()) {
+			throw new CarnotzetDefinitionException("Could not create directory [" + expandedJars + "]");
+		}
+		String topLevelModuleName = modules.get(0).getTopLevelModuleName();
+
+		Properties current = new Properties();
+		List<CarnotzetModule> changed = new ArrayList<>();
+		for (CarnotzetModule module : modules) {
+			String fingerprint = getExtractionFingerprint(module, topLevelModuleName);
+			current.setProperty(module.getName(), fingerprint);
+			Path moduleResourcesPath = expandedJars.resolve(module.getName());
+			if (fingerprint.equals(previous.getProperty(module.getName())) && moduleResourcesPath.toFile().exists()) {
+				log.debug("Resources of module [{}] did not change, skipping extraction", module.getName());
+				notifyExtracted(module, extractedModuleListener);
+				continue;
+			}
+			FileUtils.deleteDirectory(moduleResourcesPath.toFile());
+			changed.add(module);
+		}
+		extractModulesResources(changed, topLevelModuleName, extractedModuleListener);
+
+		// modules that are not part of the environment anymore
+		try (DirectoryStream<Path> expanded = Files.newDirectoryStream(expandedJars)) {
+			for (Path path : expanded) {
+				Path fileName = path.getFileName();
+				if (fileName != null && !current.containsKey(fileName.toString())) {
+					FileUtils.forceDelete(path.toFile());
+				}
+			}
+		}
+
+		try (OutputStream out = Files.newOutputStream(extractionManifest)) {
+			current.store(out, "fingerprints of the extracted modules");
+		}
+	}
 
+	/**
+	 * Extracts the modules concurrently when the extraction parallelism allows it.<br>
+	 * Failures are reported in the order of the modules, whatever the order in which the extractions complete.
+	 */
+	private void extractModulesResources(List<CarnotzetModule> modules, String topLevelModuleName,
+			Consumer<CarnotzetModule> extractedModuleListener) throws IOException {
+		if (extractionParallelism < 1) {
+			throw new IllegalArgumentException("extraction parallelism must be greater than 0, got [" + extractionParallelism + "]");
+		}
+		if (extractionParallelism == 1 || modules.size() <= 1) {
 			for (CarnotzetModule module : modules) {
-				// First copy all of the resources in the .jar of the module
-				copyModuleResources(module, expandedJars.resolve(module.getName()));
-
-				// If the module is the top level one, then we attempt to overwrite the files from the jar
-				// with fresher files coming directly from the source resource folder
-				if (module.getName().equals(topLevelModuleName)
-						&& topLevelModuleResourcesPath != null
-						&& topLevelModuleResourcesPath.toFile().exists()) {
-					FileUtils.copyDirectory(topLevelModuleResourcesPath.toFile(),
-							expandedJars.resolve(topLevelModuleName).toFile());
+				extractModuleResources(module, topLevelModuleName, extractedModuleListener);
+			}
+			return;
+		}
+
+		Map<String, Callable<Void>> extractions = new LinkedHashMap<>();
+		for (CarnotzetModule module : modules) {
+			extractions.put(module.getName(), () -> {
+				extractModuleResources(module, topLevelModuleName, extractedModuleListener);
+				return null;
+			});
+		}
+		Map<String, Throwable> failures = ConcurrentTasks.run(extractions, extractionParallelism, "carnotzet-extract-%d").getFailures();
+		if (!failures.isEmpty()) {
+			CarnotzetDefinitionException e = new CarnotzetDefinitionException("Failed to extract resources of modules " + failures.keySet(),
+					failures.values().iterator().next());
+			failures.values().stream().skip(1).forEach(e::addSuppressed);
+			throw e;
+		}
+	}
+
+	private void extractModuleResources(CarnotzetModule module, String topLevelModuleName,
+			Consumer<CarnotzetModule> extractedModuleListener) throws IOException {
+		propertiesCache.invalidate(expandedJars.resolve(module.getName()));
+		// First copy all of the resources in the .jar of the module
+		copyModuleResources(module, expandedJars.resolve(module.getName()));
+
+		// If the module is the top level one, then we attempt to overwrite the files from the jar
+		// with fresher files coming directly from the source resource folder
+		if (module.getName().equals(topLevelModuleName) && hasTopLevelModuleResources()) {
+			FileUtils.copyDirectory(topLevelModuleResourcesPath.toFile(),
+					expandedJars.resolve(topLevelModuleName).toFile());
+		}
+		notifyExtracted(module, extractedModuleListener);
+	}
+
+	/**
+	 * Listeners are only notified, a failing listener does not fail the extraction
+	 */
+	private void notifyExtracted(CarnotzetModule module, Consumer<CarnotzetModule> extractedModuleListener) {
+		if (extractedModuleListener == null) {
+			return;
+		}
+		try {
+			extractedModuleListener.accept(module);
+		}
+		catch (RuntimeException e) {
+			log.warn("Extracted module listener failed for module [" + module.getName() + "]", e);
+		}
+	}
+
+	private boolean hasTopLevelModuleResources() {
+		return topLevelModuleResourcesPath != null && topLevelModuleResourcesPath.toFile().exists();
+	}
+
+	private Properties readExtractionManifest() throws IOException {
+		Properties manifest = new Properties();
+		if (extractionManifest.toFile().exists()) {
+			try (InputStream in = Files.newInputStream(extractionManifest)) {
+				manifest.load(in);
+			}
+		}
+		return manifest;
+	}
+
+	private void deleteAllResourcesButExpandedJars() throws IOException {
+		if (!resourcesRoot.toFile().exists()) {
+			return;
+		}
+		try (DirectoryStream<Path> content = Files.newDirectoryStream(resourcesRoot)) {
+			for (Path path : content) {
+				if (!path.equals(expandedJars)) {
+					propertiesCache.invalidate(path);
+					FileUtils.forceDelete(path.toFile());
 				}
 			}
 		}
-		catch (IOException ex) {
-			throw new UncheckedIOException("Failed to copy module resources " + ex, ex);
+	}
+
+	/**
+	 * Identifies the content extracted for a module : the jar file and, for the top level module, the files of the source
+	 * resources folder.
+	 */
+	private String getExtractionFingerprint(CarnotzetModule module, String topLevelModuleName) throws IOException {
+		File jar = module.getJarPath().toFile();
+		String fingerprint = jar.getAbsolutePath() + ":" + jar.length() + ":" + jar.lastModified();
+		if (selectiveExtraction) {
+			fingerprint += ":selective" + propFileNames;
+		}
+		if (module.getName().equals(topLevelModuleName) && hasTopLevelModuleResources()) {
+			Hasher hasher = Hashing.sha256().newHasher();
+			try (Stream<Path> files = find(topLevelModuleResourcesPath, FIND_MAX_DEPTH, isRegularFile())) {
+				files.sorted().forEach(file -> {
+					File f = file.toFile();
+					hasher.putString(topLevelModuleResourcesPath.relativize(file).toString(), StandardCharsets.UTF_8)
+							.putLong(f.length())
+							.putLong(f.lastModified());
+				});
+			}
+			fingerprint += ":" + hasher.hash();
 		}
+		return fingerprint;
 	}
 
 	/**
@@ -101,13 +337,22 @@ public class ResourcesManager {
 	public void resolveResources(List<CarnotzetModule> modules) {
 		try {
 			log.debug("Resolving resources overrides and merges in [{}]", resourcesRoot);
-			List<CarnotzetModule> processedModules = new ArrayList<>();
+			ResourcesIndex index = ResourcesIndex.build(expandedJars, FIND_MAX_DEPTH);
+			Set<String> processedServiceIds = new HashSet<>();
+			Set<String> processedNames = new HashSet<>();
+			Map<Path, PendingMerge> pendingMerges = new LinkedHashMap<>();
 			for (CarnotzetModule module : modules) {
-				processedModules.add(module);
-				copyOwnResources(processedModules, module);
-				mergeFiles(processedModules, module);
-				overrideFiles(processedModules, module);
+				if (!processedServiceIds.add(module.getServiceId())) {
+					// another variant of the service was processed, its own resources may replace files with pending merges
+					applyMerges(pendingMerges, resolved.resolve(module.getServiceId()));
+				}
+				processedNames.add(module.getName());
+				ModuleResources moduleResources = index.getModuleResources(module.getName());
+				copyOwnResources(moduleResources, module, processedServiceIds, processedNames);
+				mergeFiles(moduleResources, module, processedServiceIds, pendingMerges);
+				overrideFiles(moduleResources, module, processedServiceIds, pendingMerges);
 			}
+			applyMerges(pendingMerges, resolved);
 		}
 		catch (IOException ex) {
 			throw new UncheckedIOException("Resolve module resources " + ex, ex);
@@ -118,8 +363,8 @@ public class ResourcesManager {
 	 * Copies the resources from the specified module that affects itself. Resources that affect dependencies of the
 	 * specified module are not copied.
 	 */
-	private void copyOwnResources(List<CarnotzetModule> processedModules, CarnotzetModule module) throws IOException {
-		Path expandedJarPath = expandedJars.resolve(module.getName());
+	private void copyOwnResources(ModuleResources moduleResources, CarnotzetModule module,
+			Set<String> processedServiceIds, Set<String> processedNames) throws IOException {
 		Path resolvedModulePath = resolved.resolve(module.getServiceId());
 		if (!resolvedModulePath.toFile().exists() && !resolvedModulePath.toFile().mkdirs()) {
 			throw new CarnotzetDefinitionException("Could not create directory " + resolvedModulePath);
@@ -127,70 +372,80 @@ public class ResourcesManager {
 
 		// copy all regular files at the root of the expanded jar (such as carnotzet.properties)
 		// copy all directories that do not reconfigure another module from the expanded jar recursively
-		Files.find(expandedJarPath, 1, isRegularFile().or(nameMatchesModule(processedModules).negate()))
-				.forEach(source -> {
-					try {
-						if (Files.isRegularFile(source)) {
-							Files.copy(source, resolvedModulePath.resolve(source.getFileName()), StandardCopyOption.REPLACE_EXISTING);
-						} else if (Files.isDirectory(source)) {
-							FileUtils.copyDirectory(source.toFile(), resolvedModulePath.resolve(source.getFileName()).toFile());
-						}
-					}
-					catch (IOException e) {
-						throw new UncheckedIOException(e);
-					}
-				});
+		for (Path source : moduleResources.getRootEntries()) {
+			Path fileName = source.getFileName();
+			if (fileName == null) {
+				// should not happen
+				continue;
+			}
+			if (Files.isRegularFile(source)) {
+				installFile(source, resolvedModulePath.resolve(fileName));
+			} else if (Files.isDirectory(source)
+					&& !processedServiceIds.contains(fileName.toString()) && !processedNames.contains(fileName.toString())) {
+				installDirectory(source, resolvedModulePath.resolve(fileName));
+			}
+		}
 	}
 
 	/**
 	 * Merge the content of files in processed modules and a given module. Note that when this method is called, all the dependencies
-	 * of the specified module have been fully processed, and their currently resolved files are available in ${resolved}/${dep}.
+	 * of the specified module have been fully processed, and their currently resolved files are available in ${resolved}/${dep}.<br>
+	 * Merge files are only registered as pending layers of the merged file, all the layers of a file are merged at once by
+	 * applyMerges.
 	 */
-	private void mergeFiles(List<CarnotzetModule> processedModules, CarnotzetModule module) throws IOException {
-		Path moduleExpandedJarPath = expandedJars.resolve(module.getName());
-
-		//going through all the files of the module in target/carnotzet folder
-		find(moduleExpandedJarPath, FIND_MAX_DEPTH, isPotentialMerge()).forEach(mergingFilePath -> {
+	private void mergeFiles(ModuleResources moduleResources, CarnotzetModule module, Set<String> processedServiceIds,
+			Map<Path, PendingMerge> pendingMerges) {
+		for (Map.Entry<String, List<ResourceFile>> merges : moduleResources.getMerges().entrySet()) {
+			// ${mergedModule}
+			if (!processedServiceIds.contains(merges.getKey())) {
+				continue;
+			}
+			for (ResourceFile merge : merges.getValue()) {
+				Path mergingFilePath = merge.getSource();
+				Path toMergeFile = resolved.resolve(merge.getTarget()); // ${resolved}/${mergedModule}/path/to/file
+				FileMerger fileMerger = getFileMerger(toMergeFile);
+				if (fileMerger == null) {
+					log.error("Found [{}] file in module [{}] but there is no registered FileMerger to merge"
+									+ " it with [{}]. Merge file will be ignored",
+							mergingFilePath, module.getName(), toMergeFile);
+					continue;
+				}
+				pendingMerges.computeIfAbsent(toMergeFile, file -> new PendingMerge(fileMerger)).getLayers().add(mergingFilePath);
+			}
+		}
+	}
 
-			Path relativePath = Paths.get(moduleExpandedJarPath.relativize(mergingFilePath).toString().replace(".merge", ""));
-			Path mergedModulePath = relativePath.subpath(0, 1).getFileName();
-			if (mergedModulePath == null) {
-				// should not happen
-				return;
+	/**
+	 * Merges the pending layers of the files located in a given folder, each file is written once.
+	 */
+	private void applyMerges(Map<Path, PendingMerge> pendingMerges, Path folder) throws IOException {
+		Iterator<Map.Entry<Path, PendingMerge>> it = pendingMerges.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Path, PendingMerge> pending = it.next();
+			Path toMergeFile = pending.getKey();
+			if (!toMergeFile.startsWith(folder)) {
+				continue;
+			}
+			it.remove();
+			if (!exists(toMergeFile)) {
+				Path toMergeParent = toMergeFile.getParent();
+				if (toMergeParent == null) {
+					continue;
+				}
+				if (!toMergeParent.toFile().exists() && !toMergeParent.toFile().mkdirs()) {
+					throw new IOException("Unable to create directory " + toMergeFile.getParent());
+				}
+				Files.createFile(toMergeFile);
+				log.debug("Created empty file [{}]", toMergeFile);
 			}
-			String mergedModuleName = mergedModulePath.toString(); // ${mergedModule}
-			processedModules.stream()
-					.filter(m -> m.getServiceId().equals(mergedModuleName))
-					.findFirst()
-					.ifPresent(mergedModule -> {
-						Path toMergeFile = resolved.resolve(relativePath); // ${resolved}/${mergedModule}/path/to/file
-						FileMerger fileMerger = getFileMerger(toMergeFile);
-						if (fileMerger == null) {
-							log.error("Found [{}] file in module [{}] but there is no registered FileMerger to merge"
-											+ " it with [{}]. Merge file will be ignored",
-									mergingFilePath, module.getName(), toMergeFile);
-							return;
-						}
-						if (!exists(toMergeFile)) {
-							Path toMergeParent = toMergeFile.getParent();
-							if (toMergeParent == null) {
-								return;
-							}
-							try {
-								if (!toMergeParent.toFile().exists() && !toMergeParent.toFile().mkdirs()) {
-									throw new IOException("Unable to create directory " + toMergeFile.getParent());
-								}
-								Files.createFile(toMergeFile);
-							}
-							catch (IOException e) {
-								throw new UncheckedIOException(e);
-							}
-							log.debug("Created empty file [{}]", toMergeFile);
-						}
-						fileMerger.merge(toMergeFile, mergingFilePath, toMergeFile);
-						log.debug("Merged [{}] from [{}] into [{}]", mergingFilePath, mergedModule.getServiceId(), toMergeFile);
-					});
-		});
+			materialize(toMergeFile);
+			propertiesCache.invalidate(toMergeFile);
+			List<Path> layers = new ArrayList<>();
+			layers.add(toMergeFile);
+			layers.addAll(pending.getValue().getLayers());
+			pending.getValue().getMerger().merge(layers, toMergeFile);
+			log.debug("Merged {} into [{}]", pending.getValue().getLayers(), toMergeFile);
+		}
 	}
 
 	/**
@@ -198,74 +453,90 @@ public class ResourcesManager {
 	 * In effect, it deletes a file from the resources of
 	 * the processed module if it is also present in the resources of the given module
 	 *
-	 * @param processedModules modules that have been processed so far
-	 * @param module           new module to process
+	 * @param moduleResources     indexed resources of the module to process
+	 * @param module              new module to process
+	 * @param processedServiceIds service ids of the modules that have been processed so far
+	 * @param pendingMerges       merges that are not applied yet, they are discarded for the overridden files
 	 */
-	private void overrideFiles(List<CarnotzetModule> processedModules, CarnotzetModule module) throws IOException {
-		Path moduleExpandedJarPath = expandedJars.resolve(module.getName());
-
-		//going through all the files of the module in target/carnotzet folder
-		find(moduleExpandedJarPath, FIND_MAX_DEPTH, isPotentialOverride()).forEach(overridingFilePath -> {
+	private void overrideFiles(ModuleResources moduleResources, CarnotzetModule module, Set<String> processedServiceIds,
+			Map<Path, PendingMerge> pendingMerges) throws IOException {
+		for (Map.Entry<String, List<ResourceFile>> overrides : moduleResources.getOverrides().entrySet()) {
+			// ${overriddenModule}
+			if (!processedServiceIds.contains(overrides.getKey())) {
+				continue;
+			}
+			for (ResourceFile override : overrides.getValue()) {
+				Path toOverrideFile = resolved.resolve(override.getTarget()); // ${resolved}/${overriddenModule}/path/to/file
+				Path toOverrideParent = toOverrideFile.getParent();
+				if (toOverrideParent == null) {
+					continue;
+				}
+				if (!toOverrideParent.toFile().exists() && !toOverrideParent.toFile().mkdirs()) {
+					throw new IOException("Unable to create directory " + toOverrideFile.getParent());
+				}
+				pendingMerges.remove(toOverrideFile);
+				installFile(override.getSource(), toOverrideFile);
+				log.debug("Overridden [" + toOverrideFile.getFileName() + "] "
+						+ "in [" + overrides.getKey() + "] "
+						+ "with file from [" + module.getName() + "]");
+			}
+		}
+	}
 
-			Path relativePath = moduleExpandedJarPath.relativize(overridingFilePath); // ${overridenModule}/path/to/file
-			Path overriddenModulePath = relativePath.subpath(0, 1).getFileName();
-			if (overriddenModulePath == null) {
-				// should not happen
+	/**
+	 * Copies a file, or hard links it when links are enabled and supported by the file system
+	 */
+	private void installFile(Path source, Path target) throws IOException {
+		propertiesCache.invalidate(target);
+		if (linkResources && !linksUnsupported) {
+			Files.deleteIfExists(target);
+			try {
+				Files.createLink(target, source);
 				return;
 			}
-			String overriddenModuleName = overriddenModulePath.toString(); // ${overridenModule}
-			processedModules.stream()
-					.filter(m -> m.getServiceId().equals(overriddenModuleName))
-					.findFirst()
-					.ifPresent(overriddenModule -> {
-						Path toOverrideFile = resolved.resolve(relativePath); // ${resolved}/${overrideModule}/path/to/file
-						Path toOverrideParent = toOverrideFile.getParent();
-						if (toOverrideParent == null) {
-							return;
-						}
-						try {
-							if (!toOverrideParent.toFile().exists() && !toOverrideParent.toFile().mkdirs()) {
-								throw new IOException("Unable to create directory " + toOverrideFile.getParent());
-							}
-							Files.copy(overridingFilePath, toOverrideFile, StandardCopyOption.REPLACE_EXISTING);
-							log.debug("Overridden [" + toOverrideFile.getFileName() + "] "
-									+ "in [" + overriddenModule.getServiceId() + "] "
-									+ "with file from [" + module.getName() + "]");
-						}
-						catch (IOException e) {
-							throw new UncheckedIOException(e);
-						}
-					});
-		});
+			catch (UnsupportedOperationException | IOException e) {
+				log.debug("Could not create hard link [" + target + "], resources will be copied", e);
+				linksUnsupported = true;
+			}
+		}
+		Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
 	}
 
-	private BiPredicate<Path, BasicFileAttributes> isPotentialMerge() {
-		return isRegularFile().and(nameEndsWithMerge());
+	private void installDirectory(Path source, Path target) throws IOException {
+		propertiesCache.invalidate(target);
+		if (!linkResources) {
+			FileUtils.copyDirectory(source.toFile(), target.toFile());
+			return;
+		}
+		try (Stream<Path> paths = Files.walk(source)) {
+			for (Path path : (Iterable<Path>) paths::iterator) {
+				Path targetPath = target.resolve(source.relativize(path).toString());
+				if (Files.isDirectory(path)) {
+					Files.createDirectories(targetPath);
+				} else {
+					installFile(path, targetPath);
+				}
+			}
+		}
 	}
 
-	private BiPredicate<Path, BasicFileAttributes> isPotentialOverride() {
-		return isRegularFile().and(nameEndsWithMerge().negate());
+	/**
+	 * Replaces a file that may be a hard link to a file of an expanded jar by a copy, so that it can be modified
+	 */
+	private void materialize(Path file) throws IOException {
+		Path parent = file.getParent();
+		if (!linkResources || parent == null) {
+			return;
+		}
+		Path copy = Files.createTempFile(parent, "materialized", ".tmp");
+		Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+		Files.move(copy, file, StandardCopyOption.REPLACE_EXISTING);
 	}
 
 	private BiPredicate<Path, BasicFileAttributes> isRegularFile() {
 		return (filePath, fileAttr) -> fileAttr.isRegularFile();
 	}
 
-	private BiPredicate<Path, BasicFileAttributes> nameEndsWithMerge() {
-		return (filePath, fileAttr) -> filePath.toAbsolutePath().toString().endsWith(".merge");
-	}
-
-	private BiPredicate<Path, BasicFileAttributes> nameMatchesModule(List<CarnotzetModule> modules) {
-		return (filePath, fileAttr) -> {
-			Path fileName = filePath.getFileName();
-			if (fileName == null) {
-				// Should not happen
-				return false;
-			}
-			return modules.stream().anyMatch(m -> m.getServiceId().equals(fileName.toString()) || m.getName().equals(fileName.toString()));
-		};
-	}
-
 	/**
 	 * gets the appropriate file merger for a given file type
 	 **/
@@ -278,7 +549,11 @@ public class ResourcesManager {
 		return null;
 	}
 
-	private void copyModuleResources(CarnotzetModule module, Path moduleResourcesPath) {
+	private void copyModuleResources(CarnotzetModule module, Path moduleResourcesPath) throws IOException {
+		if (selectiveExtraction) {
+			copySelectedModuleResources(module, moduleResourcesPath);
+			return;
+		}
 		try {
 			ZipFile f = new ZipFile(module.getJarPath().toFile());
 			f.extractAll(moduleResourcesPath.toAbsolutePath().toString());
@@ -288,4 +563,64 @@ public class ResourcesManager {
 		}
 
 	}
+
+	/**
+	 * Only extracts the entries of the jar that carnotzet uses (see isCarnotzetResource)
+	 */
+	private void copySelectedModuleResources(CarnotzetModule module, Path moduleResourcesPath) throws IOException {
+		Path root = moduleResourcesPath.toAbsolutePath().normalize();
+		Files.createDirectories(root);
+		try (java.util.zip.ZipFile jar = new java.util.zip.ZipFile(module.getJarPath().toFile())) {
+			Enumeration<? extends ZipEntry> entries = jar.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.isDirectory() || !isCarnotzetResource(entry.getName())) {
+					continue;
+				}
+				Path target = root.resolve(entry.getName()).normalize();
+				Path parent = target.getParent();
+				if (parent == null || !target.startsWith(root)) {
+					throw new CarnotzetDefinitionException("Entry [" + entry.getName() + "] of [" + module.getJarPath() + "] is outside of the jar");
+				}
+				Files.createDirectories(parent);
+				try (InputStream in = jar.getInputStream(entry)) {
+					Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Resources used by carnotzet, at the root of the jar (configuration of the module itself)
+	 * or in a folder named after another service (configuration of a dependency) :<br>
+	 * [service/]carnotzet.properties (and other configured properties files) and their .merge files<br>
+	 * [service/]files/**<br>
+	 * [service/]env/**<br>
+	 * [service/]welcome/**
+	 */
+	private boolean isCarnotzetResource(String entryName) {
+		String[] segments = entryName.split("/");
+		if (segments.length == 1) {
+			return isPropertiesFileOrMerge(segments[0]);
+		}
+		if (CARNOTZET_FOLDERS.contains(segments[0]) || CARNOTZET_FOLDERS.contains(segments[1])) {
+			return true;
+		}
+		return segments.length == 2 && isPropertiesFileOrMerge(segments[1]);
+	}
+
+	private boolean isPropertiesFileOrMerge(String fileName) {
+		return propFileNames.contains(fileName) || propFileNames.contains(fileName.replaceFirst("\\.merge$", ""));
+	}
+
+	/**
+	 * Merge files that still have to be merged into a resolved file, by increasing priority
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	private static final class PendingMerge {
+		private final FileMerger merger;
+		private final List<Path> layers = new ArrayList<>();
+	}
+
 }
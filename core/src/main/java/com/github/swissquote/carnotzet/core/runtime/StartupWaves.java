@@ -0,0 +1,79 @@
+package com.github.swissquote.carnotzet.core.runtime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import com.github.swissquote.carnotzet.core.CarnotzetModule;
+
+/**
+ * Groups the modules of an environment in startup "waves" according to their dependencies.<br>
+ * All the modules of a wave only depend on modules started in previous waves, so they can be started concurrently once
+ * the previous waves are up.<br>
+ * Modules that are not started (such as configuration only modules) are transparent : modules depending on them wait
+ * for their own dependencies instead.
+ */
+public final class StartupWaves {
+
+	private StartupWaves() {
+		// static function holder
+	}
+
+	/**
+	 * @param modules all the modules of the environment
+	 * @param toStart selects the modules to start
+	 * @return the modules to start grouped by wave, in startup order. The order of the modules in each wave is the order
+	 * of the environment.
+	 */
+	public static List<List<CarnotzetModule>> compute(List<CarnotzetModule> modules, Predicate<CarnotzetModule> toStart) {
+		Map<String, CarnotzetModule> byName = new HashMap<>();
+		modules.forEach(m -> byName.putIfAbsent(m.getName(), m));
+
+		Map<String, Integer> waves = new HashMap<>();
+		TreeMap<Integer, List<CarnotzetModule>> result = new TreeMap<>();
+		for (CarnotzetModule module : modules) {
+			if (toStart.test(module)) {
+				int wave = getWave(module, byName, toStart, waves, new HashSet<>());
+				result.computeIfAbsent(wave, w -> new ArrayList<>()).add(module);
+			}
+		}
+		return Collections.unmodifiableList(new ArrayList<>(result.values()));
+	}
+
+	// the wave of a module is the number of started modules in its longest dependency chain
+	private static int getWave(CarnotzetModule module, Map<String, CarnotzetModule> byName, Predicate<CarnotzetModule> toStart,
+			Map<String, Integer> waves, Set<String> visiting) {
+		Integer known = waves.get(module.getName());
+		if (known != null) {
+			return known;
+		}
+		if (!visiting.add(module.getName())) {
+			// dependency cycle (only possible when cycles are tolerated), the cycle is broken here
+			return 0;
+		}
+		int wave = 0;
+		if (module.getDependencies() != null) {
+			for (String dependencyName : module.getDependencies()) {
+				CarnotzetModule dependency = byName.get(dependencyName);
+				if (dependency == null) {
+					continue;
+				}
+				int dependencyWave = getWave(dependency, byName, toStart, waves, visiting);
+				if (toStart.test(dependency)) {
+					dependencyWave++;
+				}
+				wave = Math.max(wave, dependencyWave);
+			}
+		}
+		visiting.remove(module.getName());
+		waves.put(module.getName(), wave);
+		return wave;
+	}
+
+}
@@ -1,8 +1,10 @@
 package com.github.swissquote.carnotzet.core.runtime.api;
 
+import java.time.Duration;
 import java.util.List;
 
 import com.github.swissquote.carnotzet.core.runtime.log.LogListener;
+import com.github.swissquote.carnotzet.core.runtime.readiness.ReadinessReport;
 
 public interface ContainerOrchestrationRuntime {
 
@@ -73,6 +75,18 @@ public interface ContainerOrchestrationRuntime {
 	 */
 	void pull(PullPolicy policy);
 
+	/**
+	 * Pulls all docker images used in this environment according to the rules set by the specified PullPolicy, pulling up to
+	 * parallelism images concurrently. Images shared by multiple services are only pulled once.
+	 * Runtimes that do not support concurrent pulls fall back to pull(policy).
+	 *
+	 * @param policy      decides whether an image must be pulled or not
+	 * @param parallelism maximum number of images pulled concurrently
+	 */
+	default void pull(PullPolicy policy, int parallelism) {
+		pull(policy);
+	}
+
 	/**
 	 * Pulls a single docker image used in this environment. If there is any local image with a tag that matches the pulled image, the local
 	 * tag will be overridden and point to the freshly pushed image.
@@ -114,4 +128,39 @@ public interface ContainerOrchestrationRuntime {
 	 */
 	void registerLogListener(LogListener listener);
 
+	/**
+	 * Register a listener for the state changes of the containers of the environment.
+	 * Changes are sent asynchronously to the listener, as they are reported by the docker engine.
+	 *
+	 * @param listener to register
+	 * @throws UnsupportedOperationException if the runtime cannot track the state of the containers
+	 */
+	default void registerContainerStateListener(ContainerStateListener listener) {
+		throw new UnsupportedOperationException("This runtime does not track the state of the containers");
+	}
+
+	/**
+	 * Wait until all the running services are ready, according to the readiness probes declared in their carnotzet.properties
+	 *
+	 * @param timeout maximum time to wait
+	 * @return the time it took for each service to be ready
+	 * @throws com.github.swissquote.carnotzet.core.CarnotzetDefinitionException if some services are not ready before the timeout
+	 */
+	default ReadinessReport awaitReady(Duration timeout) {
+		throw new UnsupportedOperationException("This runtime does not support readiness probes");
+	}
+
+	/**
+	 * Wait until a service is ready, according to the readiness probes declared in its carnotzet.properties
+	 *
+	 * @param service name of the service
+	 * @param timeout maximum time to wait
+	 * @return the time it took for the service to be ready
+	 * @throws com.github.swissquote.carnotzet.core.CarnotzetDefinitionException if the service is not running, or if it is not
+	 *                                                                           ready before the timeout
+	 */
+	default ReadinessReport awaitReady(String service, Duration timeout) {
+		throw new UnsupportedOperationException("This runtime does not support readiness probes");
+	}
+
 }
@@ -0,0 +1,14 @@
+package com.github.swissquote.carnotzet.core.runtime.api;
+
+/**
+ * Notified when a container of the environment is created, changes state (started, stopped, new ip) or is removed
+ */
+public interface ContainerStateListener {
+
+	/**
+	 * @param previous state of the container before the change, null if the container was created
+	 * @param current  state of the container after the change, null if the container was removed
+	 */
+	void onStateChange(Container previous, Container current);
+
+}
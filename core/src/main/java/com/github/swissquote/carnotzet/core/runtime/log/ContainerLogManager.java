@@ -0,0 +1,241 @@
+package com.github.swissquote.carnotzet.core.runtime.log;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Forwards the logs of the containers to the registered listeners.<br>
+ * Each container has a single log stream following its new lines, read by one thread and shared by all the listeners. The lines
+ * logged before a listener started listening (according to its tail) are read once for this listener by a bounded pool of threads.
+ * While they are read, the lines received by the shared stream are held back, the ones already read with the previous lines are
+ * then discarded according to their timestamps.
+ */
+@Slf4j
+public class ContainerLogManager {
+
+	private static final int HISTORY_PARALLELISM = 4;
+
+	private final LogSource source;
+
+	private final Collection<LogListener> logListeners = new CopyOnWriteArrayList<>();
+
+	// by container id
+	private final Map<String, ContainerCapture> captures = new ConcurrentHashMap<>();
+
+	private final ExecutorService streams = Executors.newCachedThreadPool(
+			new ThreadFactoryBuilder().setNameFormat("carnotzet-logs-%d").setDaemon(true).build());
+
+	private final ExecutorService history = Executors.newFixedThreadPool(HISTORY_PARALLELISM,
+			new ThreadFactoryBuilder().setNameFormat("carnotzet-logs-history-%d").setDaemon(true).build());
+
+	public ContainerLogManager(LogSource source) {
+		this.source = source;
+	}
+
+	/**
+	 * makes sure all registered listeners are capturing logs of specified containers
+	 **/
+	public void ensureCapturingLogs(Instant from, Collection<Container> containers) {
+		logListeners.forEach(listener -> containers.forEach(container -> ensureCapturingContainerLogs(container, from, listener)));
+	}
+
+	public void registerLogListener(LogListener listener, Collection<Container> containers) {
+		logListeners.add(listener);
+		containers.forEach(container -> ensureCapturingContainerLogs(container, null, listener));
+	}
+
+	private void ensureCapturingContainerLogs(Container container, Instant since, LogListener listener) {
+		// same as docker logs --since, which is used with the default tail
+		Integer tail = since != null && listener.getTail() != null ? Integer.valueOf(LogListenerBase.DEFAULT_TAIL) : listener.getTail();
+		if (!listener.getFollow()) {
+			history.execute(() -> readHistory(container, since, tail, listener, null));
+			return;
+		}
+		boolean subscribed;
+		do {
+			subscribed = captures.computeIfAbsent(container.getId(), id -> new ContainerCapture(container)).subscribe(listener, since, tail);
+		} while (!subscribed);
+	}
+
+	private void readHistory(Container container, Instant since, Integer tail, LogListener listener, Subscriber subscriber) {
+		Instant last = null;
+		try (LogReader logs = source.open(container, since, tail, false)) {
+			for (String raw = logs.readLine(); raw != null; raw = logs.readLine()) {
+				Line line = Line.parse(raw);
+				deliver(container, listener, line);
+				if (line.getTime() != null) {
+					last = line.getTime();
+				}
+			}
+		}
+		catch (IOException | RuntimeException e) {
+			log.debug("Could not read the logs of container [" + container + "]", e);
+		}
+		finally {
+			if (subscriber != null) {
+				subscriber.historyRead(last);
+			}
+		}
+	}
+
+	private static void deliver(Container container, LogListener listener, Line line) {
+		try {
+			listener.accept(new LogEvent(container.getServiceName(), line.getText()));
+		}
+		catch (RuntimeException e) {
+			log.warn("Log listener [" + listener + "] failed", e);
+		}
+	}
+
+	/**
+	 * The shared log stream of a container
+	 */
+	private final class ContainerCapture {
+
+		private final Container container;
+
+		private final Map<LogListener, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+		// guarded by this
+		private LogReader reader;
+
+		// guarded by this
+		private boolean closed;
+
+		private ContainerCapture(Container container) {
+			this.container = container;
+		}
+
+		/**
+		 * @return false if the stream ended in the meantime, a new one must be opened
+		 */
+		private synchronized boolean subscribe(LogListener listener, Instant since, Integer tail) {
+			if (closed) {
+				return false;
+			}
+			if (subscribers.containsKey(listener)) {
+				return true;
+			}
+			if (reader == null) {
+				// opened before the previous lines are read, so that no line is missed in between
+				try {
+					reader = source.open(container, null, 0, true);
+				}
+				catch (RuntimeException e) {
+					log.debug("Could not follow the logs of container [" + container + "]", e);
+					closed = true;
+					captures.remove(container.getId(), this);
+					return true;
+				}
+				LogReader opened = reader;
+				streams.execute(() -> read(opened));
+			}
+			boolean readHistory = tail == null || tail > 0;
+			Subscriber subscriber = new Subscriber(container, listener, readHistory);
+			subscribers.put(listener, subscriber);
+			if (readHistory) {
+				history.execute(() -> readHistory(container, since, tail, listener, subscriber));
+			}
+			return true;
+		}
+
+		private void read(LogReader opened) {
+			try (LogReader logs = opened) {
+				for (String raw = logs.readLine(); raw != null; raw = logs.readLine()) {
+					Line line = Line.parse(raw);
+					subscribers.values().forEach(subscriber -> subscriber.live(line));
+				}
+			}
+			catch (IOException | RuntimeException e) {
+				log.debug("Stopped capturing the logs of container [" + container + "]", e);
+			}
+			finally {
+				// the container stopped, its logs are captured again when it is started
+				synchronized (this) {
+					closed = true;
+				}
+				captures.remove(container.getId(), this);
+			}
+		}
+
+	}
+
+	/**
+	 * A listener of the shared log stream of a container
+	 */
+	private static final class Subscriber {
+
+		private final Container container;
+
+		private final LogListener listener;
+
+		// lines received by the shared stream while the previous lines are read, null once the previous lines are delivered
+		private List<Line> pending;
+
+		// time of the last line read with the previous lines
+		private Instant historyEnd;
+
+		private Subscriber(Container container, LogListener listener, boolean readHistory) {
+			this.container = container;
+			this.listener = listener;
+			this.pending = readHistory ? new ArrayList<>() : null;
+		}
+
+		private synchronized void live(Line line) {
+			if (pending != null) {
+				pending.add(line);
+			} else if (isAfterHistory(line)) {
+				deliver(container, listener, line);
+			}
+		}
+
+		private synchronized void historyRead(Instant end) {
+			historyEnd = end;
+			pending.stream().filter(this::isAfterHistory).forEach(line -> deliver(container, listener, line));
+			pending = null;
+		}
+
+		private boolean isAfterHistory(Line line) {
+			return historyEnd == null || line.getTime() == null || line.getTime().isAfter(historyEnd);
+		}
+
+	}
+
+	@Value
+	private static final class Line {
+		private final Instant time;
+		private final String text;
+
+		/**
+		 * @param raw line prefixed by its timestamp and a space
+		 */
+		private static Line parse(String raw) {
+			int space = raw.indexOf(' ');
+			if (space > 0) {
+				try {
+					return new Line(Instant.parse(raw.substring(0, space)), raw.substring(space + 1));
+				}
+				catch (DateTimeParseException e) {
+					// not prefixed
+				}
+			}
+			return new Line(null, raw);
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.github.swissquote.carnotzet.core.runtime.log;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.function.Function;
+
+/**
+ * Reads the logs of the current run of a container, the lines logged by its previous runs are skipped.<br>
+ * The docker daemon records State.StartedAt once the process of the container is running, so its first lines can be logged
+ * slightly before. The current run is therefore delimited by the end of the previous one (State.FinishedAt, which is kept until
+ * the current run finishes), and the lines are compared to it with their timestamps.
+ */
+public final class CurrentRunLogReader implements LogReader {
+
+	private final LogReader logs;
+
+	// null if the container was never stopped, all its lines belong to the current run
+	private final Instant previousRunEnd;
+
+	private CurrentRunLogReader(LogReader logs, Instant previousRunEnd) {
+		this.logs = logs;
+		this.previousRunEnd = previousRunEnd;
+	}
+
+	/**
+	 * @param startedAt  State.StartedAt of the container, null if unknown
+	 * @param finishedAt State.FinishedAt of the container, null if unknown
+	 * @param source     opens the logs of the container, prefixed by their timestamps, from the given time (null for all the logs)
+	 */
+	public static LogReader open(String startedAt, String finishedAt, Function<Instant, LogReader> source) {
+		Instant started = parse(startedAt);
+		Instant finished = parse(finishedAt);
+		// FinishedAt is 0001-01-01T00:00:00Z if the container was never stopped
+		Instant previousRunEnd = started != null && finished != null && finished.isAfter(Instant.EPOCH) && finished.isBefore(started)
+				? finished : null;
+		return new CurrentRunLogReader(source.apply(previousRunEnd), previousRunEnd);
+	}
+
+	private static Instant parse(String time) {
+		if (time == null) {
+			return null;
+		}
+		try {
+			return Instant.parse(time.trim());
+		}
+		catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the next line of the current run, without its timestamp
+	 */
+	@Override
+	public String readLine() throws IOException {
+		for (String line = logs.readLine(); line != null; line = logs.readLine()) {
+			int space = line.indexOf(' ');
+			Instant time = space > 0 ? parse(line.substring(0, space)) : null;
+			if (time == null) {
+				return line;
+			}
+			if (previousRunEnd == null || time.isAfter(previousRunEnd)) {
+				return line.substring(space + 1);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		logs.close();
+	}
+
+}
@@ -0,0 +1,16 @@
+package com.github.swissquote.carnotzet.core.runtime.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Log lines of a container. Closing the reader from another thread interrupts a blocked readLine().
+ */
+public interface LogReader extends Closeable {
+
+	/**
+	 * @return the next line, or null at the end of the logs
+	 */
+	String readLine() throws IOException;
+
+}
@@ -0,0 +1,24 @@
+package com.github.swissquote.carnotzet.core.runtime.log;
+
+import java.time.Instant;
+
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+
+/**
+ * Reads the logs of the containers, implemented by each runtime
+ */
+@FunctionalInterface
+public interface LogSource {
+
+	/**
+	 * Opens the logs of a container, stdout and stderr in the same reader. Each line is prefixed with the time it was logged and a
+	 * space, like docker logs --timestamps does.
+	 *
+	 * @param since  only returns the lines logged after this time, null to return all lines
+	 * @param tail   number of lines to return from the end of the logs, null to return all lines
+	 * @param follow keeps the reader open and returns the new lines as they are logged, until the reader is closed or the container
+	 *               stops
+	 */
+	LogReader open(Container container, Instant since, Integer tail, boolean follow);
+
+}
@@ -0,0 +1,49 @@
+package com.github.swissquote.carnotzet.core.runtime.readiness;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Repeats an attempt until it succeeds or until a deadline is reached. The delay between attempts starts small, so that fast
+ * services are seen ready right away, and grows for the slow ones.
+ */
+/* package */ final class Backoff {
+
+	private static final long INITIAL_DELAY_MILLIS = 10;
+
+	private static final long MAX_DELAY_MILLIS = 500;
+
+	private Backoff() {
+	}
+
+	/**
+	 * @return true if an attempt succeeded before the deadline
+	 */
+	/* package */ static boolean until(Instant deadline, BooleanSupplier attempt) throws InterruptedException {
+		long delay = INITIAL_DELAY_MILLIS;
+		while (true) {
+			if (attempt.getAsBoolean()) {
+				return true;
+			}
+			long remaining = remainingMillis(deadline);
+			if (remaining <= 0) {
+				return false;
+			}
+			Thread.sleep(Math.min(delay, remaining));
+			delay = Math.min(delay * 2, MAX_DELAY_MILLIS);
+		}
+	}
+
+	/**
+	 * @return the time left before the deadline, used as timeout of the blocking calls of an attempt
+	 */
+	/* package */ static int timeoutMillis(Instant deadline) {
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, remainingMillis(deadline)));
+	}
+
+	private static long remainingMillis(Instant deadline) {
+		return Duration.between(Instant.now(), deadline).toMillis();
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.github.swissquote.carnotzet.core.runtime.readiness;
+
+import java.net.InetSocketAddress;
+
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+import com.github.swissquote.carnotzet.core.runtime.log.LogReader;
+
+/**
+ * Gives the readiness probes access to the containers, implemented by each runtime
+ */
+public interface ContainerInspector {
+
+	/**
+	 * @return the status of the docker HEALTHCHECK of the container (starting, healthy or unhealthy), null if the image has no
+	 * HEALTHCHECK
+	 */
+	String getHealthStatus(Container container);
+
+	/**
+	 * @return the address to connect to a TCP port of the container. Runtimes return the port published on the docker host when
+	 * there is one, as the IP of the container is not reachable when the docker daemon runs in a VM (docker for mac, docker for
+	 * windows, remote DOCKER_HOST). Defaults to the port on the IP of the container, null if the container has no IP.
+	 */
+	default InetSocketAddress getAddress(Container container, int port) {
+		return container.getIp() == null ? null : new InetSocketAddress(container.getIp(), port);
+	}
+
+	/**
+	 * Follows the logs of the current run of the container, starting from its first line. The lines logged before the last start
+	 * of the container are skipped, so that a restarted service is not seen ready because of its previous run.
+	 */
+	LogReader openLogs(Container container);
+
+}
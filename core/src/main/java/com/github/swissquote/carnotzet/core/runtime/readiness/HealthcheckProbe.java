@@ -0,0 +1,38 @@
+package com.github.swissquote.carnotzet.core.runtime.readiness;
+
+import java.time.Instant;
+
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+
+/**
+ * Ready when the docker HEALTHCHECK of the image reports the container as healthy
+ */
+/* package */ final class HealthcheckProbe implements ReadinessProbe {
+
+	private final ContainerInspector inspector;
+
+	/* package */ HealthcheckProbe(ContainerInspector inspector) {
+		this.inspector = inspector;
+	}
+
+	@Override
+	public boolean await(Container container, Instant deadline) throws InterruptedException {
+		return Backoff.until(deadline, () -> isHealthy(container));
+	}
+
+	private boolean isHealthy(Container container) {
+		String status = inspector.getHealthStatus(container);
+		if (status == null) {
+			throw new CarnotzetDefinitionException("The image of service [" + container.getServiceName() + "] has no HEALTHCHECK, "
+					+ "readiness.healthcheck cannot be used");
+		}
+		return "healthy".equals(status);
+	}
+
+	@Override
+	public String toString() {
+		return "healthcheck";
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.github.swissquote.carnotzet.core.runtime.readiness;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.time.Instant;
+
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+
+/**
+ * Ready when a GET request to a path of the container is answered with status 200
+ */
+/* package */ final class HttpProbe implements ReadinessProbe {
+
+	private final int port;
+
+	private final String path;
+
+	private final ContainerInspector inspector;
+
+	/* package */ HttpProbe(int port, String path, ContainerInspector inspector) {
+		this.port = port;
+		this.path = path.startsWith("/") ? path : "/" + path;
+		this.inspector = inspector;
+	}
+
+	@Override
+	public boolean await(Container container, Instant deadline) throws InterruptedException {
+		return Backoff.until(deadline, () -> get(container, deadline));
+	}
+
+	private boolean get(Container container, Instant deadline) {
+		// resolved on every attempt, the port may not be published yet
+		InetSocketAddress address = inspector.getAddress(container, port);
+		if (address == null) {
+			return false;
+		}
+		HttpURLConnection connection = null;
+		try {
+			connection = (HttpURLConnection) new URL("http", address.getHostString(), address.getPort(), path).openConnection();
+			connection.setConnectTimeout(Backoff.timeoutMillis(deadline));
+			connection.setReadTimeout(Backoff.timeoutMillis(deadline));
+			connection.setInstanceFollowRedirects(false);
+			return connection.getResponseCode() == HttpURLConnection.HTTP_OK;
+		}
+		catch (IOException e) {
+			return false;
+		}
+		finally {
+			if (connection != null) {
+				connection.disconnect();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "http port " + port + path;
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.github.swissquote.carnotzet.core.runtime.readiness;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+import com.github.swissquote.carnotzet.core.runtime.log.LogReader;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ready when a line of the logs of the container matches a regular expression. The logs are followed as they are written, each
+ * line is checked as soon as it is received.
+ */
+@Slf4j
+/* package */ final class LogProbe implements ReadinessProbe {
+
+	// closes the logs of the probes reaching their deadline
+	private static final ScheduledExecutorService TIMEOUTS = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("carnotzet-readiness-timeout-%d").setDaemon(true).build());
+
+	private final Pattern pattern;
+
+	private final ContainerInspector inspector;
+
+	/* package */ LogProbe(Pattern pattern, ContainerInspector inspector) {
+		this.pattern = pattern;
+		this.inspector = inspector;
+	}
+
+	@Override
+	public boolean await(Container container, Instant deadline) throws InterruptedException {
+		try (LogReader logs = inspector.openLogs(container)) {
+			ScheduledFuture<?> timeout = TIMEOUTS.schedule(() -> closeQuietly(logs),
+					Math.max(0, Duration.between(Instant.now(), deadline).toMillis()), TimeUnit.MILLISECONDS);
+			try {
+				for (String line = logs.readLine(); line != null; line = logs.readLine()) {
+					if (pattern.matcher(line).find()) {
+						return true;
+					}
+				}
+			}
+			finally {
+				timeout.cancel(false);
+			}
+		}
+		catch (IOException e) {
+			log.debug("Stopped reading the logs of container [" + container + "]", e);
+		}
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+		return false;
+	}
+
+	private static void closeQuietly(LogReader logs) {
+		try {
+			logs.close();
+		}
+		catch (IOException e) {
+			log.debug("Could not close logs", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "log line matching [" + pattern + "]";
+	}
+
+}
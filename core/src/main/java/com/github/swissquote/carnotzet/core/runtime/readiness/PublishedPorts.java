@@ -0,0 +1,36 @@
+package com.github.swissquote.carnotzet.core.runtime.readiness;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+import com.google.common.base.Strings;
+
+/**
+ * Resolves the ports of the containers published on the docker host
+ */
+public final class PublishedPorts {
+
+	private PublishedPorts() {
+	}
+
+	/**
+	 * @param hostIp     address the port is published on, empty, 0.0.0.0 or :: when published on all the addresses of the docker host
+	 * @param hostPort   port number on the docker host
+	 * @param dockerHost DOCKER_HOST of the docker daemon, the port is published on the host of a tcp:// DOCKER_HOST, and on
+	 *                   localhost otherwise (docker for mac and docker for windows forward the published ports to localhost)
+	 */
+	public static InetSocketAddress toAddress(String hostIp, int hostPort, String dockerHost) {
+		if (!Strings.isNullOrEmpty(hostIp) && !"0.0.0.0".equals(hostIp) && !"::".equals(hostIp)) {
+			return new InetSocketAddress(hostIp, hostPort);
+		}
+		if (dockerHost != null && dockerHost.startsWith("tcp://")) {
+			String host = URI.create(dockerHost).getHost();
+			if (host != null) {
+				return new InetSocketAddress(host, hostPort);
+			}
+		}
+		return new InetSocketAddress(InetAddress.getLoopbackAddress(), hostPort);
+	}
+
+}
@@ -0,0 +1,153 @@
+package com.github.swissquote.carnotzet.core.runtime.readiness;
+
+import static java.util.stream.Collectors.toList;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
+import com.github.swissquote.carnotzet.core.CarnotzetModule;
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+import com.github.swissquote.carnotzet.core.util.ConcurrentTasks;
+
+/**
+ * Waits until the running services are ready, according to the readiness probes declared in the carnotzet.properties of their
+ * modules :<br>
+ * readiness.tcp.ports : TCP connections to these ports (comma separated) are accepted<br>
+ * readiness.http.port and readiness.http.path : a GET request to this port and path (defaults to /) is answered with status 200<br>
+ * readiness.log.regex : a line of the logs matches this regular expression<br>
+ * readiness.healthcheck=true : the docker HEALTHCHECK of the image reports the container as healthy<br>
+ * Services and their probes are checked concurrently, a service is ready once all its probes succeeded. Services without probes are ready as
+ * soon as their container runs. Ports are reached through the port published on the docker host when there is one.
+ */
+public class ReadinessChecker {
+
+	private final Supplier<List<CarnotzetModule>> modules;
+
+	private final Supplier<List<Container>> containers;
+
+	private final ContainerInspector inspector;
+
+	public ReadinessChecker(Supplier<List<CarnotzetModule>> modules, Supplier<List<Container>> containers, ContainerInspector inspector) {
+		this.modules = modules;
+		this.containers = containers;
+		this.inspector = inspector;
+	}
+
+	/**
+	 * Waits until all the running services are ready
+	 *
+	 * @throws CarnotzetDefinitionException if some services are not ready before the timeout
+	 */
+	public ReadinessReport awaitReady(Duration timeout) {
+		return awaitReady(containers.get().stream().filter(Container::isRunning).collect(toList()), timeout);
+	}
+
+	/**
+	 * Waits until a service is ready
+	 *
+	 * @throws CarnotzetDefinitionException if the service is not running, or if it is not ready before the timeout
+	 */
+	public ReadinessReport awaitReady(String service, Duration timeout) {
+		Container container = containers.get().stream()
+				.filter(c -> c.isRunning() && c.getServiceName().equals(service))
+				.findFirst()
+				.orElseThrow(() -> new CarnotzetDefinitionException("Service [" + service + "] is not running"));
+		return awaitReady(Collections.singletonList(container), timeout);
+	}
+
+	private ReadinessReport awaitReady(List<Container> toCheck, Duration timeout) {
+		Instant start = Instant.now();
+		Instant deadline = start.plus(timeout);
+		if (toCheck.isEmpty()) {
+			return new ReadinessReport(Duration.ZERO, Collections.emptyMap());
+		}
+		Map<String, CarnotzetModule> modulesByService = modules.get().stream()
+				.collect(LinkedHashMap::new, (map, m) -> map.put(m.getServiceId(), m), Map::putAll);
+
+		Map<String, Callable<Duration>> checks = new LinkedHashMap<>();
+		for (Container container : toCheck) {
+			List<ReadinessProbe> probes = getProbes(modulesByService.get(container.getServiceName()));
+			checks.put(container.getServiceName(), () -> {
+				awaitProbes(container, probes, deadline, timeout);
+				return Duration.between(start, Instant.now());
+			});
+		}
+		Map<String, Duration> ready = ConcurrentTasks.run(checks, toCheck.size(), "carnotzet-readiness-%d")
+				.getValuesOrThrow(failed -> "Services " + failed + " were not ready after [" + timeout.toMillis() + "ms]");
+		Map<String, Duration> sorted = new LinkedHashMap<>();
+		ready.entrySet().stream().sorted(Map.Entry.comparingByValue()).forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+		return new ReadinessReport(Duration.between(start, Instant.now()), Collections.unmodifiableMap(sorted));
+	}
+
+	private static void awaitProbes(Container container, List<ReadinessProbe> probes, Instant deadline, Duration timeout) {
+		Map<String, Callable<Boolean>> awaits = new LinkedHashMap<>();
+		for (ReadinessProbe probe : probes) {
+			awaits.put(probe.toString(), () -> probe.await(container, deadline));
+		}
+		Map<String, Boolean> ready = ConcurrentTasks.run(awaits, Math.max(1, awaits.size()), "carnotzet-readiness-probe-%d")
+				.getValuesOrThrow(failed -> "Readiness probes " + failed + " of service [" + container.getServiceName() + "] failed");
+		List<String> waitingFor = ready.entrySet().stream().filter(entry -> !entry.getValue()).map(Map.Entry::getKey).collect(toList());
+		if (!waitingFor.isEmpty()) {
+			throw new CarnotzetDefinitionException("Service [" + container.getServiceName() + "] was not ready after ["
+					+ timeout.toMillis() + "ms], waiting for " + String.join(", ", waitingFor));
+		}
+	}
+
+	/**
+	 * @return the readiness probes declared in the properties of the module
+	 */
+	public List<ReadinessProbe> getProbes(CarnotzetModule module) {
+		List<ReadinessProbe> probes = new ArrayList<>();
+		if (module == null || module.getProperties() == null) {
+			return probes;
+		}
+		Map<String, String> properties = module.getProperties();
+		if (properties.containsKey("readiness.tcp.ports")) {
+			Arrays.stream(properties.get("readiness.tcp.ports").split(","))
+					.map(String::trim)
+					.filter(port -> !port.isEmpty())
+					.forEach(port -> probes.add(new TcpProbe(parsePort(module, port), inspector)));
+		}
+		if (properties.containsKey("readiness.http.port")) {
+			String path = properties.getOrDefault("readiness.http.path", "/").trim();
+			probes.add(new HttpProbe(parsePort(module, properties.get("readiness.http.port").trim()), path, inspector));
+		}
+		if (properties.containsKey("readiness.log.regex")) {
+			probes.add(new LogProbe(parseRegex(module, properties.get("readiness.log.regex")), inspector));
+		}
+		if ("true".equalsIgnoreCase(properties.getOrDefault("readiness.healthcheck", "false").trim())) {
+			probes.add(new HealthcheckProbe(inspector));
+		}
+		return probes;
+	}
+
+	private static int parsePort(CarnotzetModule module, String port) {
+		try {
+			return Integer.parseInt(port);
+		}
+		catch (NumberFormatException e) {
+			throw new CarnotzetDefinitionException("Invalid readiness probe port [" + port + "] in module [" + module.getName() + "]", e);
+		}
+	}
+
+	private static Pattern parseRegex(CarnotzetModule module, String regex) {
+		try {
+			return Pattern.compile(regex);
+		}
+		catch (PatternSyntaxException e) {
+			throw new CarnotzetDefinitionException("Invalid readiness probe regex [" + regex + "] in module [" + module.getName() + "]", e);
+		}
+	}
+
+}
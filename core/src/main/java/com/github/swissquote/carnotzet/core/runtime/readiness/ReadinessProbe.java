@@ -0,0 +1,19 @@
+package com.github.swissquote.carnotzet.core.runtime.readiness;
+
+import java.time.Instant;
+
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+
+/**
+ * Finds out when the service running in a container is ready to be used
+ */
+public interface ReadinessProbe {
+
+	/**
+	 * Blocks until the service is ready, or until the deadline is reached
+	 *
+	 * @return true if the service is ready, false if the deadline was reached first
+	 */
+	boolean await(Container container, Instant deadline) throws InterruptedException;
+
+}
@@ -0,0 +1,24 @@
+package com.github.swissquote.carnotzet.core.runtime.readiness;
+
+import java.time.Duration;
+import java.util.Map;
+
+import lombok.Value;
+
+/**
+ * Time it took for the services to be ready
+ */
+@Value
+public class ReadinessReport {
+
+	/**
+	 * Time until all the services were ready
+	 */
+	private final Duration total;
+
+	/**
+	 * Time until each service was ready, by service name. Services without readiness probes are ready as soon as they run.
+	 */
+	private final Map<String, Duration> services;
+
+}
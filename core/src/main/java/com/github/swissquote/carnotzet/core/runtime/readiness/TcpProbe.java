@@ -0,0 +1,62 @@
+package com.github.swissquote.carnotzet.core.runtime.readiness;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Instant;
+
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+
+/**
+ * Ready when a TCP connection to a port of the container is accepted, and not closed right away.<br>
+ * The proxy of a port published by docker accepts the connections even when nothing listens in the container yet, and closes them
+ * as soon as it fails to connect to the container.
+ */
+/* package */ final class TcpProbe implements ReadinessProbe {
+
+	// time during which an accepted connection must stay open
+	private static final int CLOSE_DELAY_MILLIS = 100;
+
+	private final int port;
+
+	private final ContainerInspector inspector;
+
+	/* package */ TcpProbe(int port, ContainerInspector inspector) {
+		this.port = port;
+		this.inspector = inspector;
+	}
+
+	@Override
+	public boolean await(Container container, Instant deadline) throws InterruptedException {
+		return Backoff.until(deadline, () -> connect(container, deadline));
+	}
+
+	private boolean connect(Container container, Instant deadline) {
+		// resolved on every attempt, the port may not be published yet
+		InetSocketAddress address = inspector.getAddress(container, port);
+		if (address == null) {
+			return false;
+		}
+		try (Socket socket = new Socket()) {
+			socket.connect(address, Backoff.timeoutMillis(deadline));
+			socket.setSoTimeout(Math.min(CLOSE_DELAY_MILLIS, Backoff.timeoutMillis(deadline)));
+			try {
+				return socket.getInputStream().read() >= 0;
+			}
+			catch (SocketTimeoutException e) {
+				// still open, the service waits for the client to speak first
+				return true;
+			}
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "tcp port " + port;
+	}
+
+}
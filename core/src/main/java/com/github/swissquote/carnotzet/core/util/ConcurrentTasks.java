@@ -0,0 +1,101 @@
+package com.github.swissquote.carnotzet.core.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.Value;
+
+/**
+ * Runs named tasks concurrently on a bounded pool of daemon threads.<br>
+ * All the tasks are run even if some of them fail, results and failures are reported in the order of the tasks, whatever the order
+ * in which they complete.
+ */
+public final class ConcurrentTasks {
+
+	private ConcurrentTasks() {
+	}
+
+	/**
+	 * @param tasks            by name, in the order they are submitted
+	 * @param parallelism      maximum number of tasks running at the same time
+	 * @param threadNameFormat format of the names of the threads, such as "carnotzet-pull-%d"
+	 */
+	public static <T> Results<T> run(Map<String, ? extends Callable<T>> tasks, int parallelism, String threadNameFormat) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be greater than 0, got [" + parallelism + "]");
+		}
+		if (tasks.isEmpty()) {
+			return new Results<>(Collections.emptyMap(), Collections.emptyMap());
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()),
+				new ThreadFactoryBuilder().setNameFormat(threadNameFormat).setDaemon(true).build());
+		try {
+			Map<String, Future<T>> futures = new LinkedHashMap<>();
+			tasks.forEach((name, task) -> futures.put(name, executor.submit(task)));
+			Map<String, T> values = new LinkedHashMap<>();
+			Map<String, Throwable> failures = new LinkedHashMap<>();
+			for (Map.Entry<String, Future<T>> future : futures.entrySet()) {
+				try {
+					values.put(future.getKey(), future.getValue().get());
+				}
+				catch (ExecutionException e) {
+					failures.put(future.getKey(), e.getCause());
+				}
+			}
+			return new Results<>(Collections.unmodifiableMap(values), Collections.unmodifiableMap(failures));
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CarnotzetDefinitionException(e);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Runs tasks without result
+	 *
+	 * @throws CarnotzetDefinitionException if some tasks failed, the message is computed from the names of the failed tasks
+	 */
+	public static void runAll(Map<String, ? extends Runnable> tasks, int parallelism, String threadNameFormat,
+			Function<Set<String>, String> failureMessage) {
+		Map<String, Callable<Object>> callables = new LinkedHashMap<>();
+		tasks.forEach((name, task) -> callables.put(name, Executors.callable(task)));
+		run(callables, parallelism, threadNameFormat).getValuesOrThrow(failureMessage);
+	}
+
+	/**
+	 * Values of the tasks that succeeded and failures of the others, by task name in the order of the tasks
+	 */
+	@Value
+	public static final class Results<T> {
+		private final Map<String, T> values;
+		private final Map<String, Throwable> failures;
+
+		/**
+		 * @throws CarnotzetDefinitionException if some tasks failed, with the failures as suppressed exceptions. The message is
+		 *                                      computed from the names of the failed tasks.
+		 */
+		public Map<String, T> getValuesOrThrow(Function<Set<String>, String> failureMessage) {
+			if (!failures.isEmpty()) {
+				CarnotzetDefinitionException e = new CarnotzetDefinitionException(failureMessage.apply(failures.keySet()));
+				failures.values().forEach(e::addSuppressed);
+				throw e;
+			}
+			return values;
+		}
+	}
+
+}
@@ -2,7 +2,6 @@ package com.github.swissquote.carnotzet.core.util;
 
 import static com.github.swissquote.carnotzet.core.util.ContainerStartupWrapperUtils.DockerExecutionItem.CMD;
 import static com.github.swissquote.carnotzet.core.util.ContainerStartupWrapperUtils.DockerExecutionItem.ENTRYPOINT;
-import static java.util.Arrays.asList;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -20,7 +19,7 @@ import com.github.swissquote.carnotzet.core.docker.DockerUtils;
 import com.github.swissquote.carnotzet.core.docker.registry.DockerRegistry;
 import com.github.swissquote.carnotzet.core.docker.registry.ImageMetaData;
 import com.github.swissquote.carnotzet.core.docker.registry.ImageRef;
-import com.github.swissquote.carnotzet.core.runtime.DefaultCommandRunner;
+import com.github.swissquote.carnotzet.core.docker.registry.LocalImage;
 
 import lombok.Getter;
 import lombok.NonNull;
@@ -35,8 +34,6 @@ import lombok.extern.slf4j.Slf4j;
  */
 public final class ContainerStartupWrapperUtils {
 
-	// TODO : add static cache of image metadata to avoid fetching the same data from the registry multiple times
-
 	private ContainerStartupWrapperUtils() {
 	}
 
@@ -54,17 +51,24 @@ public final class ContainerStartupWrapperUtils {
 	// Returns null if there is no entrypoint/cmd for the image
 	// throws a CarnotzetDefinitionException if the docker daemon returned an error (ie: the image could not be found)
 	public static String getFromLocalImage(String image, DockerExecutionItem type) {
+		LocalImage localImage;
 		try {
-			String inspectOutput = DefaultCommandRunner.INSTANCE.runCommandAndCaptureOutput(
-					"docker", "inspect", "-f", "{{range .Config." + type.getJsonField() + "}}{{.}}||{{end}}", image).trim();
-			if (inspectOutput.isEmpty()) {
-				return null;
-			}
-			return DockerUtils.formatExecEntrypointOrCmd(asList(inspectOutput.split("\\|\\|")));
+			localImage = DockerRegistry.INSTANCE.getLocalImage(image);
 		}
 		catch (RuntimeException e) {
 			throw new CarnotzetDefinitionException("Could not get Entrypoint for [" + image + "] on the docker host", e);
 		}
+		if (localImage == null) {
+			throw new CarnotzetDefinitionException("Could not get Entrypoint for [" + image + "], it does not exist on the docker host");
+		}
+		switch (type) {
+			case CMD:
+				return DockerUtils.formatExecEntrypointOrCmd(localImage.getCmd());
+			case ENTRYPOINT:
+				return DockerUtils.formatExecEntrypointOrCmd(localImage.getEntrypoint());
+			default:
+				throw new CarnotzetDefinitionException("Unknown docker execution item type [" + type + "]");
+		}
 	}
 
 	// Returns the entrypoint/cmd in Exec format (json array)
@@ -0,0 +1,142 @@
+package com.github.swissquote.cartnotzet.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.swissquote.carnotzet.core.Carnotzet;
+import com.github.swissquote.carnotzet.core.CarnotzetConfig;
+import com.github.swissquote.carnotzet.core.CarnotzetModule;
+import com.github.swissquote.carnotzet.core.maven.CarnotzetModuleCoordinates;
+import com.github.swissquote.carnotzet.core.maven.DependencyGraphProvider;
+import com.github.swissquote.carnotzet.core.maven.Node;
+
+public class CarnotzetTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void concurrent_callers_share_a_single_resolution() throws Exception {
+		// Given
+		Path localRepo = createLocalRepository();
+		CountDownLatch resolutionStarted = new CountDownLatch(1);
+		CountDownLatch callersWaiting = new CountDownLatch(1);
+		AtomicInteger resolutions = new AtomicInteger();
+		DependencyGraphProvider provider = new DependencyGraphProvider() {
+			@Override
+			public Node getDependencyTree(CarnotzetModuleCoordinates topLevelModuleId) {
+				resolutions.incrementAndGet();
+				resolutionStarted.countDown();
+				try {
+					callersWaiting.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return appNode();
+			}
+
+			@Override
+			public Path getLocalRepositoryPath() {
+				return localRepo;
+			}
+		};
+		Carnotzet carnotzet = createCarnotzet(provider);
+
+		// When
+		CompletableFuture<List<CarnotzetModule>> async = carnotzet.getModulesAsync();
+		resolutionStarted.await(10, TimeUnit.SECONDS);
+		ExecutorService callers = Executors.newFixedThreadPool(4);
+		List<Future<List<CarnotzetModule>>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			results.add(callers.submit(carnotzet::getModules));
+		}
+		callersWaiting.countDown();
+
+		// Then
+		List<CarnotzetModule> modules = async.get(10, TimeUnit.SECONDS);
+		for (Future<List<CarnotzetModule>> result : results) {
+			assertSame(modules, result.get(10, TimeUnit.SECONDS));
+		}
+		callers.shutdown();
+		assertThat(resolutions.get(), is(1));
+		assertThat(modules.size(), is(1));
+		assertThat(carnotzet.getModule("app").get().getImageName(), is("app:1.0"));
+		assertSame(modules, carnotzet.getModulesAsync().get());
+	}
+
+	@Test
+	public void predicted_images_are_notified_during_extraction() throws Exception {
+		// Given
+		Path localRepo = createLocalRepository();
+		Carnotzet carnotzet = createCarnotzet(new DependencyGraphProvider() {
+			@Override
+			public Node getDependencyTree(CarnotzetModuleCoordinates topLevelModuleId) {
+				return appNode();
+			}
+
+			@Override
+			public Path getLocalRepositoryPath() {
+				return localRepo;
+			}
+		});
+		List<CarnotzetModule> predicted = new CopyOnWriteArrayList<>();
+		carnotzet.setPredictedImageListener(predicted::add);
+
+		// When
+		carnotzet.getModules();
+
+		// Then
+		assertThat(predicted.size(), is(1));
+		assertThat(predicted.get(0).getServiceId(), is("app"));
+		assertThat(predicted.get(0).getImageName(), is("app:1.0"));
+	}
+
+	private Path createLocalRepository() throws IOException {
+		Path localRepo = temp.newFolder("repository").toPath();
+		Path jar = localRepo.resolve("org/example/app-carnotzet/1.0/app-carnotzet-1.0.jar");
+		Files.createDirectories(jar.getParent());
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+			zip.putNextEntry(new ZipEntry("carnotzet.properties"));
+			zip.write("docker.image=app:${app.version}".getBytes(UTF_8));
+			zip.closeEntry();
+		}
+		return localRepo;
+	}
+
+	private Carnotzet createCarnotzet(DependencyGraphProvider provider) throws IOException {
+		return new Carnotzet(CarnotzetConfig.builder()
+				.topLevelModuleId(new CarnotzetModuleCoordinates("org.example", "app-carnotzet", "1.0"))
+				.resourcesPath(temp.newFolder("resources").toPath())
+				.dependencyGraphProvider(provider)
+				.build());
+	}
+
+	private static Node appNode() {
+		return new Node("org.example", "app-carnotzet", "jar", null, "1.0", null, null, false, null, new LinkedList<>());
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.github.swissquote.cartnotzet.core;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.swissquote.carnotzet.core.ImageNameTemplate;
+
+public class ImageNameTemplateTest {
+
+	@Test
+	public void render_all_placeholders() {
+		Map<String, String> values = new HashMap<>();
+		values.put("docker.registry", "docker.my.org");
+		values.put("service.id", "redis");
+		values.put("redis-module.version", "3.0.7");
+
+		ImageNameTemplate template = ImageNameTemplate.parse("${docker.registry}/${service.id}:${redis-module.version}-${service.id}");
+
+		assertThat(template.render(values::get), is("docker.my.org/redis:3.0.7-redis"));
+	}
+
+	@Test
+	public void render_without_placeholders() {
+		ImageNameTemplate template = ImageNameTemplate.parse("redis:3.0.7");
+
+		assertFalse(template.hasPlaceholders());
+		assertThat(template.render(placeholder -> {
+			throw new IllegalStateException(placeholder);
+		}), is("redis:3.0.7"));
+	}
+
+}
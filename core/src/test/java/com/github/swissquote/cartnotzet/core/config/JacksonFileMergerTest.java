@@ -0,0 +1,66 @@
+package com.github.swissquote.cartnotzet.core.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.github.swissquote.carnotzet.core.config.JsonFileMerger;
+import com.github.swissquote.carnotzet.core.config.YamlFileMerger;
+
+public class JacksonFileMergerTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void deep_merge_yaml_layers() throws IOException {
+		// Given
+		Path base = write("config.yml", "server:\n  port: 8080\n  hosts: [a, b]\nname: base\n");
+		Path layer1 = write("layer1.yml", "server:\n  port: 9090\n  tls:\n    enabled: true\n");
+		Path layer2 = write("layer2.yml", "server:\n  hosts: [c]\n");
+		Path empty = write("empty.yml", "");
+
+		// When
+		new YamlFileMerger().merge(Arrays.asList(base, layer1, empty, layer2), base);
+
+		// Then
+		JsonNode merged = new ObjectMapper(new YAMLFactory()).readTree(base.toFile());
+		assertThat(merged.path("name").asText(), is("base"));
+		assertThat(merged.path("server").path("port").asInt(), is(9090));
+		assertThat(merged.path("server").path("tls").path("enabled").asBoolean(), is(true));
+		assertThat(merged.path("server").path("hosts").size(), is(1));
+		assertThat(merged.path("server").path("hosts").get(0).asText(), is("c"));
+	}
+
+	@Test
+	public void deep_merge_json_into_empty_file() throws IOException {
+		// Given
+		Path base = write("config.json", "");
+		Path merge = write("config.json.merge", "{\"a\":{\"b\":1},\"c\":[1,2]}");
+
+		// When
+		new JsonFileMerger().merge(base, merge, base);
+
+		// Then
+		JsonNode merged = new ObjectMapper().readTree(base.toFile());
+		assertThat(merged.path("a").path("b").asInt(), is(1));
+		assertThat(merged.path("c").size(), is(2));
+	}
+
+	private Path write(String fileName, String content) throws IOException {
+		return Files.write(temp.getRoot().toPath().resolve(fileName), content.getBytes(UTF_8));
+	}
+
+}
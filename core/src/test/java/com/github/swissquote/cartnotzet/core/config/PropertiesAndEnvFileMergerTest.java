@@ -0,0 +1,46 @@
+package com.github.swissquote.cartnotzet.core.config;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.swissquote.carnotzet.core.config.PropertiesAndEnvFileMerger;
+
+public class PropertiesAndEnvFileMergerTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void merge_layers() throws IOException {
+		// Given
+		Path base = temp.newFile("base.properties").toPath();
+		Path layer1 = temp.newFile("layer1.properties").toPath();
+		Path layer2 = temp.newFile("layer2.properties").toPath();
+		Files.write(base, "b=base\na=base\\\n  continued\n# comment\nc=base\n".getBytes(ISO_8859_1));
+		Files.write(layer1, "b : layer1\nd=layer1 with spaces\n".getBytes(ISO_8859_1));
+		Files.write(layer2, "c=layer2\ne\\ key=\\u00e9=\n".getBytes(ISO_8859_1));
+
+		// When
+		new PropertiesAndEnvFileMerger().merge(Arrays.asList(base, layer1, layer2), base);
+
+		// Then
+		assertThat(new String(Files.readAllBytes(base), ISO_8859_1), is(String.join(System.lineSeparator(),
+				"a=basecontinued",
+				"b=layer1",
+				"c=layer2",
+				"d=layer1 with spaces",
+				"e\\ key=\\u00E9\\=",
+				"")));
+	}
+
+}
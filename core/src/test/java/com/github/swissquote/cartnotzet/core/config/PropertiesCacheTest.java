@@ -0,0 +1,58 @@
+package com.github.swissquote.cartnotzet.core.config;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.swissquote.carnotzet.core.config.PropertiesCache;
+
+public class PropertiesCacheTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void read_once_until_changed_or_invalidated() throws IOException {
+		// Given
+		PropertiesCache cache = new PropertiesCache();
+		Path folder = temp.newFolder("service").toPath();
+		Path file = folder.resolve("carnotzet.properties");
+		Files.write(file, "docker.image=a\n".getBytes(ISO_8859_1));
+		FileTime lastModified = Files.getLastModifiedTime(file);
+		Map<String, String> first = cache.get(file);
+
+		// When the file is rewritten with the same size and modification time
+		Files.write(file, "docker.image=b\n".getBytes(ISO_8859_1));
+		Files.setLastModifiedTime(file, lastModified);
+
+		// Then
+		assertSame(first, cache.get(file));
+		assertThat(first.get("docker.image"), is("a"));
+
+		// When the folder is invalidated
+		cache.invalidate(folder);
+
+		// Then
+		assertThat(cache.get(file).get("docker.image"), is("b"));
+
+		// When the file changes
+		Files.write(file, "docker.image=changed\n".getBytes(ISO_8859_1));
+
+		// Then
+		assertThat(cache.get(file).get("docker.image"), is("changed"));
+		assertTrue(cache.get(folder.resolve("missing.properties")).isEmpty());
+	}
+
+}
@@ -0,0 +1,154 @@
+package com.github.swissquote.cartnotzet.core.docker.engine;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.swissquote.carnotzet.core.docker.engine.ContainerStateTracker;
+import com.github.swissquote.carnotzet.core.docker.engine.DockerEngineClient;
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+
+public class ContainerStateTrackerTest {
+
+	private ServerSocket server;
+	private final AtomicReference<String> containersJson = new AtomicReference<>("[]");
+	private final CountDownLatch subscribed = new CountDownLatch(1);
+	private volatile OutputStream events;
+	private final BlockingQueue<Socket> eventSockets = new LinkedBlockingQueue<>();
+	private ContainerStateTracker tracker;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+		Thread thread = new Thread(this::serve);
+		thread.setDaemon(true);
+		thread.start();
+		DockerEngineClient client = new DockerEngineClient("tcp://127.0.0.1:" + server.getLocalPort());
+		tracker = new ContainerStateTracker(client, Collections.singletonMap("carnotzet.instance.id", "app"),
+				s -> new Container(s.getId(), s.getLabels().get("carnotzet.module.service.id"), s.isRunning(), null));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		tracker.close();
+		server.close();
+	}
+
+	/**
+	 * Keeps the event stream open, answers the other requests with the current containers (or with an error if they are null)
+	 */
+	private void serve() {
+		try {
+			while (!server.isClosed()) {
+				Socket socket = server.accept();
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+				String request = reader.readLine();
+				for (String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+					// skip headers
+				}
+				OutputStream out = socket.getOutputStream();
+				if (request.startsWith("GET /v1.25/events?")) {
+					out.write("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+					out.flush();
+					events = out;
+					eventSockets.add(socket);
+					subscribed.countDown();
+				} else if (containersJson.get() == null) {
+					out.write("HTTP/1.1 500 Internal Server Error\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+					out.flush();
+					socket.close();
+				} else {
+					byte[] body = containersJson.get().getBytes(StandardCharsets.UTF_8);
+					out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+					out.write(body);
+					out.flush();
+					socket.close();
+				}
+			}
+		}
+		catch (IOException e) {
+			// server closed
+		}
+	}
+
+	private static String container(String state) {
+		return "[{\"Id\":\"abc\",\"State\":\"" + state + "\",\"Labels\":{\"carnotzet.module.service.id\":\"redis\"}}]";
+	}
+
+	@Test
+	public void listeners_are_notified_of_the_changes_reported_by_the_events() throws Exception {
+		// Given
+		containersJson.set(container("exited"));
+		AtomicReference<Container> previous = new AtomicReference<>();
+		AtomicReference<Container> current = new AtomicReference<>();
+		CountDownLatch changed = new CountDownLatch(1);
+		tracker.addListener((before, after) -> {
+			previous.set(before);
+			current.set(after);
+			changed.countDown();
+		});
+		assertTrue(subscribed.await(5, TimeUnit.SECONDS));
+		assertFalse(tracker.getContainers().get(0).isRunning());
+
+		// When
+		containersJson.set(container("running"));
+		String event = "{\"Type\":\"container\",\"Action\":\"start\",\"id\":\"abc\"}\n";
+		events.write((Integer.toHexString(event.length()) + "\r\n" + event + "\r\n").getBytes(StandardCharsets.US_ASCII));
+		events.flush();
+
+		// Then
+		assertTrue(changed.await(5, TimeUnit.SECONDS));
+		assertFalse(previous.get().isRunning());
+		assertTrue(current.get().isRunning());
+		List<Container> containers = tracker.getContainers();
+		assertThat(containers.size(), is(1));
+		assertThat(containers.get(0).getServiceName(), is("redis"));
+		assertTrue(containers.get(0).isRunning());
+	}
+
+	@Test
+	public void failed_subscriptions_close_their_event_stream() throws Exception {
+		// Given
+		containersJson.set(null);
+
+		// When
+		try {
+			tracker.getContainers();
+			fail("containers cannot be listed");
+		}
+		catch (RuntimeException e) {
+			// expected
+		}
+
+		// Then
+		Socket failedSubscription = eventSockets.poll(5, TimeUnit.SECONDS);
+		failedSubscription.setSoTimeout(5000);
+		assertThat(failedSubscription.getInputStream().read(), is(-1));
+		containersJson.set(container("running"));
+		assertTrue(tracker.getContainers().get(0).isRunning());
+		assertThat(eventSockets.size(), is(1));
+	}
+
+}
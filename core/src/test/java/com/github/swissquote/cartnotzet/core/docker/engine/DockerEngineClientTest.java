@@ -0,0 +1,145 @@
+package com.github.swissquote.cartnotzet.core.docker.engine;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
+import com.github.swissquote.carnotzet.core.docker.engine.ContainerSummary;
+import com.github.swissquote.carnotzet.core.docker.engine.DockerEngineClient;
+import com.github.swissquote.carnotzet.core.docker.engine.LogStream;
+
+public class DockerEngineClientTest {
+
+	private ServerSocket server;
+	private final List<String> requests = new CopyOnWriteArrayList<>();
+	private DockerEngineClient client;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+		client = new DockerEngineClient("tcp://127.0.0.1:" + server.getLocalPort());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		server.close();
+	}
+
+	/**
+	 * Answers the next request with the given raw response
+	 */
+	private void respond(String response) {
+		Thread thread = new Thread(() -> {
+			try (Socket socket = server.accept()) {
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+				requests.add(reader.readLine());
+				for (String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+					// skip headers
+				}
+				OutputStream out = socket.getOutputStream();
+				out.write(response.getBytes(StandardCharsets.UTF_8));
+				out.flush();
+			}
+			catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Test
+	public void list_containers_by_label_with_chunked_response() {
+		// Given
+		String json = "[{\"Id\":\"abc\",\"State\":\"running\",\"Labels\":{\"carnotzet.instance.id\":\"app\"},"
+				+ "\"NetworkSettings\":{\"Networks\":{\"app_carnotzet\":{\"IPAddress\":\"172.18.0.2\"}}}}]";
+		respond("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nTransfer-Encoding: chunked\r\n\r\n"
+				+ Integer.toHexString(10) + "\r\n" + json.substring(0, 10) + "\r\n"
+				+ Integer.toHexString(json.length() - 10) + "\r\n" + json.substring(10) + "\r\n"
+				+ "0\r\n\r\n");
+
+		// When
+		List<ContainerSummary> containers = client.listContainers(Collections.singletonMap("carnotzet.instance.id", "app"));
+
+		// Then
+		assertThat(requests.get(0), is("GET /v1.25/containers/json?all=1&filters=%7B%22label%22%3A%5B%22carnotzet.instance.id%3Dapp%22%5D%7D"
+				+ " HTTP/1.1"));
+		assertThat(containers.size(), is(1));
+		assertThat(containers.get(0).getId(), is("abc"));
+		assertTrue(containers.get(0).isRunning());
+		assertThat(containers.get(0).getNetworkSettings().getNetworks().get("app_carnotzet").getIpAddress(), is("172.18.0.2"));
+	}
+
+	@Test
+	public void log_lines_are_rebuilt_from_multiplexed_frames() throws IOException {
+		// Given
+		String body = frame(1, "first li") + frame(2, "error\n") + frame(1, "ne\nsecond line\n") + frame(1, "last");
+		respond("HTTP/1.1 200 OK\r\nContent-Length: " + body.length() + "\r\n\r\n" + body);
+
+		// When
+		List<String> lines = new ArrayList<>();
+		try (LogStream logs = client.openLogs("abc", null, 10, false)) {
+			for (String line = logs.readLine(); line != null; line = logs.readLine()) {
+				lines.add(line);
+			}
+		}
+
+		// Then
+		assertThat(requests.get(0), is("GET /v1.25/containers/abc/logs?stdout=1&stderr=1&follow=0&tail=10 HTTP/1.1"));
+		assertThat(lines, is(Arrays.asList("error", "first line", "second line", "last")));
+	}
+
+	private static String frame(int stream, String payload) {
+		return new String(new char[] {(char) stream, 0, 0, 0, 0, 0, 0, (char) payload.length()}) + payload;
+	}
+
+	@Test
+	public void stopping_a_stopped_container_is_not_an_error() {
+		// Given
+		respond("HTTP/1.1 304 Not Modified\r\nContent-Length: 0\r\n\r\n");
+
+		// When
+		client.stopContainer("abc", 10);
+
+		// Then
+		assertThat(requests.get(0), is("POST /v1.25/containers/abc/stop?t=10 HTTP/1.1"));
+	}
+
+	@Test
+	public void errors_report_the_message_of_the_engine() {
+		// Given
+		String body = "{\"message\":\"You cannot remove a running container\"}";
+		respond("HTTP/1.1 409 Conflict\r\nContent-Length: " + body.length() + "\r\n\r\n" + body);
+
+		// When
+		try {
+			client.removeContainer("abc");
+			fail("a running container cannot be removed");
+		}
+		catch (CarnotzetDefinitionException e) {
+			// Then
+			assertThat(e.getMessage(), is("Docker engine failed to remove container [abc], status [409] : You cannot remove a running container"));
+		}
+	}
+
+}
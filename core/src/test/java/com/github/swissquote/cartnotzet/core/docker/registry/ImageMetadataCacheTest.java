@@ -0,0 +1,105 @@
+package com.github.swissquote.cartnotzet.core.docker.registry;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.swissquote.carnotzet.core.docker.registry.ContainerImageConfig;
+import com.github.swissquote.carnotzet.core.docker.registry.ContainerImageV1;
+import com.github.swissquote.carnotzet.core.docker.registry.DistributionManifestConfig;
+import com.github.swissquote.carnotzet.core.docker.registry.DistributionManifestV2;
+import com.github.swissquote.carnotzet.core.docker.registry.ImageMetaData;
+import com.github.swissquote.carnotzet.core.docker.registry.ImageMetadataCache;
+import com.github.swissquote.carnotzet.core.docker.registry.ImageRef;
+import com.github.swissquote.carnotzet.core.docker.registry.LocalImage;
+
+public class ImageMetadataCacheTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void registry_metadata_is_persisted_by_digest() throws IOException {
+		// Given
+		Path folder = temp.newFolder("cache").toPath();
+		new ImageMetadataCache(folder, Duration.ofMinutes(5))
+				.putRegistryMetadata(new ImageRef("docker.example.com/app:1.0"), metadata("sha256:1234"));
+
+		// When
+		ImageMetadataCache cache = new ImageMetadataCache(folder, Duration.ofMinutes(5));
+
+		// Then
+		ImageMetaData cached = cache.getRegistryMetadata(new ImageRef("docker.example.com/app:1.0"));
+		assertThat(cached.getContainerImage().getConfig().getEntrypoint(), is(Arrays.asList("/entrypoint.sh", "start")));
+		assertThat(cached.getContainerImage().getCreated().toInstant(), is(ZonedDateTime.parse("2018-01-02T03:04:05.123456789Z").toInstant()));
+		assertThat(cache.getRegistryMetadataByDigest("sha256:1234").getDistributionManifest().getConfig().getDigest(), is("sha256:1234"));
+		assertNull(cache.getRegistryMetadata(new ImageRef("docker.example.com/app:2.0")));
+	}
+
+	@Test
+	public void tags_expire_but_digests_do_not() {
+		// Given
+		ImageMetadataCache cache = new ImageMetadataCache(null, Duration.ZERO);
+
+		// When
+		cache.putRegistryMetadata(new ImageRef("docker.example.com/app:latest"), metadata("sha256:1234"));
+		cache.putRegistryMetadata(new ImageRef("docker.example.com/app@sha256:abcd"), metadata("sha256:1234"));
+
+		// Then
+		assertNull(cache.getRegistryMetadata(new ImageRef("docker.example.com/app:latest")));
+		assertThat(cache.getRegistryMetadata(new ImageRef("docker.example.com/app@sha256:abcd")).getDistributionManifest().getConfig()
+				.getDigest(), is("sha256:1234"));
+		assertThat(cache.getRegistryMetadataByDigest("sha256:1234").getDistributionManifest().getConfig().getDigest(), is("sha256:1234"));
+	}
+
+	@Test
+	public void local_images_are_inspected_once_until_invalidated() {
+		// Given
+		ImageMetadataCache cache = new ImageMetadataCache();
+		AtomicInteger inspections = new AtomicInteger();
+		LocalImage image = new LocalImage("sha256:1234", ZonedDateTime.parse("2018-01-02T03:04:05Z").toInstant(), null, null);
+
+		// When
+		cache.getLocalImage("app:1.0", name -> {
+			inspections.incrementAndGet();
+			return image;
+		});
+		cache.getLocalImage("app:1.0", name -> {
+			inspections.incrementAndGet();
+			return image;
+		});
+		cache.invalidateLocalImage("app:1.0");
+		cache.getLocalImage("app:1.0", name -> {
+			inspections.incrementAndGet();
+			return image;
+		});
+
+		// Then
+		assertThat(inspections.get(), is(2));
+	}
+
+	private static ImageMetaData metadata(String digest) {
+		DistributionManifestConfig manifestConfig = new DistributionManifestConfig();
+		manifestConfig.setDigest(digest);
+		DistributionManifestV2 manifest = new DistributionManifestV2();
+		manifest.setConfig(manifestConfig);
+		ContainerImageConfig imageConfig = new ContainerImageConfig();
+		imageConfig.setEntrypoint(Arrays.asList("/entrypoint.sh", "start"));
+		ContainerImageV1 image = new ContainerImageV1();
+		image.setConfig(imageConfig);
+		image.setCreated(ZonedDateTime.parse("2018-01-02T03:04:05.123456789Z"));
+		return new ImageMetaData(manifest, image);
+	}
+
+}
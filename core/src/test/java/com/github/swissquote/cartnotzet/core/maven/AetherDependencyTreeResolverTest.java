@@ -0,0 +1,87 @@
+package com.github.swissquote.cartnotzet.core.maven;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
+import com.github.swissquote.carnotzet.core.maven.AetherDependencyTreeResolver;
+import com.github.swissquote.carnotzet.core.maven.CarnotzetModuleCoordinates;
+import com.github.swissquote.carnotzet.core.maven.Node;
+import com.github.swissquote.carnotzet.core.maven.TopologicalSorter;
+
+public class AetherDependencyTreeResolverTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	private void pom(String artifactId, String version, String... dependencies) throws IOException {
+		StringBuilder pom = new StringBuilder()
+				.append("<project><modelVersion>4.0.0</modelVersion>")
+				.append("<groupId>com.test</groupId><artifactId>").append(artifactId).append("</artifactId>")
+				.append("<version>").append(version).append("</version><dependencies>");
+		for (String dependency : dependencies) {
+			String[] gav = dependency.split(":");
+			pom.append("<dependency><groupId>com.test</groupId><artifactId>").append(gav[0]).append("</artifactId>")
+					.append("<version>").append(gav[1]).append("</version></dependency>");
+		}
+		pom.append("</dependencies></project>");
+		Path folder = temp.getRoot().toPath().resolve("com/test").resolve(artifactId).resolve(version);
+		Files.createDirectories(folder);
+		Files.write(folder.resolve(artifactId + "-" + version + ".pom"), pom.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Node resolve(String artifactId) {
+		return new AetherDependencyTreeResolver().resolve(new CarnotzetModuleCoordinates("com.test", artifactId, "1"),
+				temp.getRoot().toPath());
+	}
+
+	private List<String> describe(List<Node> nodes) {
+		return nodes.stream().map(n -> n.getArtifactId() + ":" + n.getVersion() + (n.isOmitted() ? " (omitted)" : "")).collect(toList());
+	}
+
+	@Test
+	public void conflict_losers_are_kept_as_omitted_nodes() throws IOException {
+		pom("top", "1", "a:1", "b:1");
+		pom("a", "1", "c:1");
+		pom("b", "1", "c:2");
+		pom("c", "1");
+		pom("c", "2");
+
+		Node top = resolve("top");
+
+		assertThat(top.getScope(), is((String) null));
+		assertThat(describe(top.getChildNodes()), is(Arrays.asList("a:1", "b:1")));
+		assertThat(top.getChildNodes().get(0).getScope(), is("compile"));
+		assertThat(describe(top.getChildNodes().get(0).getChildNodes()), is(Arrays.asList("c:1")));
+		assertThat(describe(top.getChildNodes().get(1).getChildNodes()), is(Arrays.asList("c:2 (omitted)")));
+	}
+
+	@Test(expected = CarnotzetDefinitionException.class)
+	public void cycles_are_reported_by_the_sorter() throws IOException {
+		pom("top", "1", "a:1");
+		pom("a", "1", "b:1");
+		pom("b", "1", "a:1");
+
+		new TopologicalSorter().sort(resolve("top"), true);
+	}
+
+	@Test(expected = CarnotzetDefinitionException.class)
+	public void missing_pom_fails_the_resolution() throws IOException {
+		pom("top", "1", "a:1");
+
+		resolve("top");
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.github.swissquote.cartnotzet.core.maven;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.swissquote.carnotzet.core.maven.CarnotzetModuleCoordinates;
+import com.github.swissquote.carnotzet.core.maven.Node;
+import com.github.swissquote.carnotzet.core.maven.ResolutionCacheInputs;
+
+public class ResolutionCacheInputsTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	private Path pomPath(CarnotzetModuleCoordinates id) {
+		return temp.getRoot().toPath().resolve(id.getGroupId().replace('.', '/')).resolve(id.getArtifactId()).resolve(id.getVersion())
+				.resolve(id.getArtifactId() + "-" + id.getVersion() + ".pom");
+	}
+
+	private Path pom(String artifactId, String version, String content) throws IOException {
+		Path file = pomPath(new CarnotzetModuleCoordinates("com.test", artifactId, version));
+		Files.createDirectories(file.getParent());
+		Files.write(file, ("<project><modelVersion>4.0.0</modelVersion><groupId>com.test</groupId><artifactId>" + artifactId
+				+ "</artifactId><version>" + version + "</version>" + content + "</project>").getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static String imported(String artifactId, String version) {
+		return "<dependencyManagement><dependencies><dependency><groupId>com.test</groupId><artifactId>" + artifactId + "</artifactId>"
+				+ "<version>" + version + "</version><type>pom</type><scope>import</scope></dependency></dependencies>"
+				+ "</dependencyManagement>";
+	}
+
+	private static Node node(String artifactId, String version, Node... children) {
+		return new Node("com.test", artifactId, "jar", null, version, null, null, false, null, new LinkedList<>(Arrays.asList(children)));
+	}
+
+	private Optional<Set<Path>> collect(Node tree) {
+		return ResolutionCacheInputs.collect(tree, this::pomPath);
+	}
+
+	@Test
+	public void parents_and_nested_imported_boms_are_inputs() throws IOException {
+		// Given
+		Path parent = pom("parent", "1", "<packaging>pom</packaging><properties><bom.version>2</bom.version></properties>");
+		Path bom = pom("bom", "2", "<packaging>pom</packaging>" + imported("nested-bom", "${project.version}"));
+		Path nestedBom = pom("nested-bom", "2", "<packaging>pom</packaging>");
+		Path app = pom("app", "1", "<parent><groupId>com.test</groupId><artifactId>parent</artifactId><version>1</version></parent>"
+				+ imported("bom", "${bom.version}"));
+		Path db = pom("db", "1", "<parent><groupId>com.test</groupId><artifactId>parent</artifactId><version>1</version></parent>");
+
+		// When
+		Optional<Set<Path>> inputs = collect(node("app", "1", node("db", "1")));
+
+		// Then
+		assertThat(inputs.isPresent(), is(true));
+		assertThat(inputs.get(), is(new LinkedHashSet<>(Arrays.asList(app, db, parent, bom, nestedBom))));
+	}
+
+	@Test
+	public void resolutions_depending_on_snapshots_are_not_cached() throws IOException {
+		pom("app", "1", "");
+		pom("db", "1-SNAPSHOT", "");
+
+		assertThat(collect(node("app", "1", node("db", "1-SNAPSHOT"))).isPresent(), is(false));
+	}
+
+	@Test
+	public void resolutions_depending_on_version_ranges_are_not_cached() throws IOException {
+		pom("app", "1", "<dependencies><dependency><groupId>com.test</groupId><artifactId>db</artifactId>"
+				+ "<version>[1,2)</version></dependency></dependencies>");
+		pom("db", "1", "");
+
+		assertThat(collect(node("app", "1", node("db", "1"))).isPresent(), is(false));
+	}
+
+	@Test
+	public void resolutions_with_unresolvable_poms_are_not_cached() throws IOException {
+		pom("app", "1", imported("bom", "${undefined.version}"));
+
+		assertThat(collect(node("app", "1")).isPresent(), is(false));
+	}
+
+}
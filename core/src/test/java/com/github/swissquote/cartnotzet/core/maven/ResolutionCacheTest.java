@@ -0,0 +1,115 @@
+package com.github.swissquote.cartnotzet.core.maven;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.swissquote.carnotzet.core.CarnotzetModule;
+import com.github.swissquote.carnotzet.core.maven.CarnotzetModuleCoordinates;
+import com.github.swissquote.carnotzet.core.maven.ResolutionCache;
+
+public class ResolutionCacheTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	private final CarnotzetModuleCoordinates topLevel = new CarnotzetModuleCoordinates("com.test", "app-carnotzet", "1");
+
+	private ResolutionCache cache;
+	private Path pom;
+	private Path dependencyPom;
+	private List<CarnotzetModule> modules;
+
+	@Before
+	public void setUp() throws IOException {
+		cache = new ResolutionCache(temp.newFolder("cache").toPath(), "config");
+		pom = write("app-carnotzet-1.pom", "<project/>");
+		dependencyPom = write("db-carnotzet-1.pom", "<project/>");
+		modules = Arrays.asList(
+				CarnotzetModule.builder()
+						.id(new CarnotzetModuleCoordinates("com.test", "db-carnotzet", "1", "carnotzet"))
+						.name("db")
+						.topLevelModuleName("app")
+						.jarPath(write("db-carnotzet-1.jar", "db"))
+						.dependencies(Collections.emptySet())
+						.build(),
+				CarnotzetModule.builder()
+						.id(topLevel)
+						.name("app")
+						.topLevelModuleName("app")
+						.jarPath(write("app-carnotzet-1.jar", "app"))
+						.dependencies(new LinkedHashSet<>(Collections.singletonList("db")))
+						.build());
+	}
+
+	private Path write(String fileName, String content) throws IOException {
+		Path file = temp.getRoot().toPath().resolve(fileName);
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void cached_modules_are_returned_when_nothing_changed() {
+		cache.put(topLevel, true, pom, modules, Arrays.asList(pom, dependencyPom));
+
+		Optional<List<CarnotzetModule>> cached = cache.get(topLevel, true, pom);
+
+		assertThat(cached.isPresent(), is(true));
+		assertThat(cached.get(), is(modules));
+	}
+
+	@Test
+	public void removed_entries_are_not_returned() {
+		cache.put(topLevel, true, pom, modules, Arrays.asList(pom, dependencyPom));
+
+		cache.remove(topLevel, true);
+
+		assertThat(cache.get(topLevel, true, pom).isPresent(), is(false));
+	}
+
+	@Test
+	public void entry_is_ignored_when_settings_differ() {
+		cache.put(topLevel, true, pom, modules, Arrays.asList(pom, dependencyPom));
+
+		assertThat(cache.get(topLevel, false, pom).isPresent(), is(false));
+	}
+
+	@Test
+	public void entry_is_ignored_when_top_level_pom_changes() throws IOException {
+		cache.put(topLevel, true, pom, modules, Arrays.asList(pom, dependencyPom));
+		write("app-carnotzet-1.pom", "<project><dependencies/></project>");
+
+		assertThat(cache.get(topLevel, true, pom).isPresent(), is(false));
+	}
+
+	@Test
+	public void entry_is_ignored_when_a_dependency_changes() throws IOException {
+		cache.put(topLevel, true, pom, modules, Arrays.asList(pom, dependencyPom));
+		write("db-carnotzet-1.pom", "<project><parent/></project>");
+
+		assertThat(cache.get(topLevel, true, pom).isPresent(), is(false));
+	}
+
+	@Test
+	public void entry_is_ignored_when_a_jar_is_missing() throws IOException {
+		cache.put(topLevel, true, pom, modules, Arrays.asList(pom, dependencyPom));
+		Files.delete(modules.get(0).getJarPath());
+
+		assertThat(cache.get(topLevel, true, pom).isPresent(), is(false));
+	}
+
+}
@@ -1,6 +1,8 @@
 package com.github.swissquote.cartnotzet.core.maven;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -12,6 +14,8 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
@@ -19,6 +23,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
 import com.github.swissquote.carnotzet.core.CarnotzetModule;
 import com.github.swissquote.carnotzet.core.maven.ResourcesManager;
 
@@ -97,6 +102,39 @@ public class ResourcesManagerTest {
 		assertThat(service3carnotzet2.getProperty("injected.from.service1"), is("service1value"));
 	}
 
+	@Test
+	public void linked_resources_are_not_modified_by_merges() throws IOException {
+		// Given
+		URL url = Thread.currentThread().getContextClassLoader().getResource("example_merge");
+		File example = new File(url.getPath());
+		Path resources = temp.newFolder().toPath();
+		FileUtils.copyDirectory(example, resources.toFile());
+		Files.createDirectories(resources.resolve("expanded-jars/service3/files"));
+		Files.write(resources.resolve("expanded-jars/service3/files/dump.sql"), "select 1;".getBytes(UTF_8));
+		String originalCarnotzet = readFile(resources, "expanded-jars/service3/carnotzet.properties");
+		String originalConfig = readFile(resources, "expanded-jars/service3/service3/files/config.properties");
+		ResourcesManager manager = new ResourcesManager(resources, null);
+		manager.setLinkResources(true);
+		List<CarnotzetModule> modules = Arrays.asList(
+				CarnotzetModule.builder().name("service3").serviceId("service3").build(),
+				CarnotzetModule.builder().name("service2").serviceId("service2").build(),
+				CarnotzetModule.builder().name("service1").serviceId("service1").build()
+		);
+
+		// When
+		manager.resolveResources(modules);
+
+		// Then
+		Properties service3config = new Properties();
+		service3config.load(Files.newInputStream(resources.resolve("resolved/service3/files/config.properties")));
+		assertThat(service3config.getProperty("added.from.service2.and.overridden.from.service1"), is("service1value"));
+		assertThat(service3config.getProperty("added.from.service3"), is("service3value"));
+		assertThat(readFile(resources, "expanded-jars/service3/service3/files/config.properties"), is(originalConfig));
+		assertThat(readFile(resources, "expanded-jars/service3/carnotzet.properties"), is(originalCarnotzet));
+		assertTrue(Files.isSameFile(resources.resolve("resolved/service3/files/dump.sql"),
+				resources.resolve("expanded-jars/service3/files/dump.sql")));
+	}
+
 	@Test
 	public void copy_own_resources() throws IOException {
 		// Given
@@ -168,4 +206,152 @@ public class ResourcesManagerTest {
 
 	}
 
+	@Test
+	public void incremental_extraction() throws IOException {
+		// Given
+		Path resources = temp.newFolder().toPath();
+		Path service1Jar = createJar("service1.jar", "carnotzet.properties", "docker.image=service1:1");
+		Path service2Jar = createJar("service2.jar", "carnotzet.properties", "docker.image=service2:1");
+		ResourcesManager manager = new ResourcesManager(resources, null);
+		manager.setIncrementalExtraction(true);
+		manager.extractResources(Arrays.asList(jarModule("service1", service1Jar), jarModule("service2", service2Jar)));
+		Files.createDirectories(resources.resolve("resolved"));
+		Files.createFile(resources.resolve("expanded-jars/service1/marker"));
+		Files.createFile(resources.resolve("expanded-jars/service2/marker"));
+
+		// When
+		createJar("service2.jar", "carnotzet.properties", "docker.image=service2:2");
+		assertTrue(service2Jar.toFile().setLastModified(service2Jar.toFile().lastModified() + 2000));
+		manager.extractResources(Arrays.asList(jarModule("service2", service2Jar)));
+
+		// Then
+		assertFalse(resources.resolve("expanded-jars/service2/marker").toFile().exists());
+		assertThat(new String(Files.readAllBytes(resources.resolve("expanded-jars/service2/carnotzet.properties")), UTF_8),
+				is("docker.image=service2:2"));
+		assertFalse(resources.resolve("expanded-jars/service1").toFile().exists());
+		assertFalse(resources.resolve("resolved").toFile().exists());
+
+		// When
+		manager.extractResources(Arrays.asList(jarModule("service2", service2Jar)));
+		Files.createFile(resources.resolve("expanded-jars/service2/marker"));
+		manager.extractResources(Arrays.asList(jarModule("service2", service2Jar)));
+
+		// Then
+		assertTrue(resources.resolve("expanded-jars/service2/marker").toFile().exists());
+	}
+
+	@Test
+	public void linked_resources_are_always_extracted() throws IOException {
+		// Given
+		Path resources = temp.newFolder().toPath();
+		Path service1Jar = createJar("service1.jar", "carnotzet.properties", "docker.image=service1:1");
+		ResourcesManager manager = new ResourcesManager(resources, null);
+		manager.setIncrementalExtraction(true);
+		manager.setLinkResources(true);
+		manager.extractResources(Arrays.asList(jarModule("service1", service1Jar)));
+		// written by a container through a link
+		Files.write(resources.resolve("expanded-jars/service1/carnotzet.properties"), "docker.image=modified".getBytes(UTF_8));
+
+		// When
+		manager.extractResources(Arrays.asList(jarModule("service1", service1Jar)));
+
+		// Then
+		assertThat(new String(Files.readAllBytes(resources.resolve("expanded-jars/service1/carnotzet.properties")), UTF_8),
+				is("docker.image=service1:1"));
+	}
+
+	@Test
+	public void parallel_extraction() throws IOException {
+		// Given
+		Path resources = temp.newFolder().toPath();
+		Path topLevelResources = temp.newFolder("src").toPath();
+		Files.write(topLevelResources.resolve("carnotzet.properties"), "docker.image=service2:source".getBytes(UTF_8));
+		ResourcesManager manager = new ResourcesManager(resources, topLevelResources);
+		manager.setExtractionParallelism(4);
+		List<CarnotzetModule> modules = Arrays.asList(
+				jarModule("service1", createJar("service1.jar", "carnotzet.properties", "docker.image=service1:1")),
+				jarModule("service3", createJar("service3.jar", "carnotzet.properties", "docker.image=service3:1")),
+				jarModule("service2", createJar("service2.jar", "carnotzet.properties", "docker.image=service2:1")));
+
+		// When
+		manager.extractResources(modules);
+
+		// Then
+		assertThat(new String(Files.readAllBytes(resources.resolve("expanded-jars/service1/carnotzet.properties")), UTF_8),
+				is("docker.image=service1:1"));
+		assertThat(new String(Files.readAllBytes(resources.resolve("expanded-jars/service3/carnotzet.properties")), UTF_8),
+				is("docker.image=service3:1"));
+		// the source resources of the top level module are applied over its jar
+		assertThat(new String(Files.readAllBytes(resources.resolve("expanded-jars/service2/carnotzet.properties")), UTF_8),
+				is("docker.image=service2:source"));
+	}
+
+	@Test
+	public void parallel_extraction_reports_failures_in_module_order() throws IOException {
+		// Given
+		Path resources = temp.newFolder().toPath();
+		ResourcesManager manager = new ResourcesManager(resources, null);
+		manager.setExtractionParallelism(4);
+		List<CarnotzetModule> modules = Arrays.asList(
+				jarModule("service1", temp.getRoot().toPath().resolve("missing1.jar")),
+				jarModule("service3", createJar("service3.jar", "carnotzet.properties", "docker.image=service3:1")),
+				jarModule("service2", temp.getRoot().toPath().resolve("missing2.jar")));
+
+		try {
+			// When
+			manager.extractResources(modules);
+			Assert.fail("extraction should fail");
+		}
+		catch (CarnotzetDefinitionException e) {
+			// Then
+			assertThat(e.getMessage(), is("Failed to extract resources of modules [service1, service2]"));
+			assertThat(e.getSuppressed().length, is(1));
+		}
+	}
+
+	@Test
+	public void selective_extraction() throws IOException {
+		// Given
+		Path resources = temp.newFolder().toPath();
+		Path jar = temp.getRoot().toPath().resolve("service1.jar");
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+			for (String entry : Arrays.asList("carnotzet.properties", "carnotzet.properties.merge", "other.properties",
+					"META-INF/MANIFEST.MF", "com/example/App.class", "files/etc/app.conf", "env/app.env", "welcome/welcome.html",
+					"service2/carnotzet.properties.merge", "service2/files/etc/app.conf", "service2/other/file")) {
+				zip.putNextEntry(new ZipEntry(entry));
+				zip.write(entry.getBytes(UTF_8));
+				zip.closeEntry();
+			}
+		}
+		ResourcesManager manager = new ResourcesManager(resources, null);
+		manager.setSelectiveExtraction(true);
+
+		// When
+		manager.extractResources(Arrays.asList(jarModule("service1", jar)));
+
+		// Then
+		Path expanded = resources.resolve("expanded-jars/service1");
+		for (String extracted : Arrays.asList("carnotzet.properties", "carnotzet.properties.merge", "files/etc/app.conf", "env/app.env",
+				"welcome/welcome.html", "service2/carnotzet.properties.merge", "service2/files/etc/app.conf")) {
+			assertTrue(extracted, expanded.resolve(extracted).toFile().exists());
+		}
+		for (String ignored : Arrays.asList("other.properties", "META-INF", "com", "service2/other")) {
+			assertFalse(ignored, expanded.resolve(ignored).toFile().exists());
+		}
+	}
+
+	private CarnotzetModule jarModule(String name, Path jar) {
+		return CarnotzetModule.builder().name(name).topLevelModuleName("service2").jarPath(jar).build();
+	}
+
+	private Path createJar(String fileName, String entry, String content) throws IOException {
+		Path jar = temp.getRoot().toPath().resolve(fileName);
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+			zip.putNextEntry(new ZipEntry(entry));
+			zip.write(content.getBytes(UTF_8));
+			zip.closeEntry();
+		}
+		return jar;
+	}
+
 }
@@ -0,0 +1,196 @@
+package com.github.swissquote.cartnotzet.core.runtime;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
+import com.github.swissquote.carnotzet.core.CarnotzetModule;
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+import com.github.swissquote.carnotzet.core.runtime.log.LogReader;
+import com.github.swissquote.carnotzet.core.runtime.readiness.ContainerInspector;
+import com.github.swissquote.carnotzet.core.runtime.readiness.ReadinessChecker;
+import com.github.swissquote.carnotzet.core.runtime.readiness.ReadinessReport;
+
+public class ReadinessCheckerTest {
+
+	private CarnotzetModule module(String name, Map<String, String> properties) {
+		return CarnotzetModule.builder()
+				.name(name)
+				.serviceId(name)
+				.imageName(name)
+				.properties(properties)
+				.build();
+	}
+
+	private Container container(String name) {
+		return new Container(name + "-id", name, true, "127.0.0.1");
+	}
+
+	/**
+	 * Serves the given log lines for every container, without health status
+	 */
+	private ContainerInspector logs(String... lines) {
+		return new ContainerInspector() {
+			@Override
+			public String getHealthStatus(Container container) {
+				return null;
+			}
+
+			@Override
+			public LogReader openLogs(Container container) {
+				Deque<String> remaining = new ArrayDeque<>(Arrays.asList(lines));
+				return new LogReader() {
+					@Override
+					public String readLine() {
+						return remaining.poll();
+					}
+
+					@Override
+					public void close() {
+						remaining.clear();
+					}
+				};
+			}
+		};
+	}
+
+	@Test
+	public void services_are_ready_once_their_probes_succeed() throws IOException {
+		try (ServerSocket server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress())) {
+			// Given
+			List<CarnotzetModule> modules = Arrays.asList(
+					module("db", Collections.singletonMap("readiness.tcp.ports", Integer.toString(server.getLocalPort()))),
+					module("app", Collections.singletonMap("readiness.log.regex", "Started .* in [0-9.]+ seconds")),
+					module("web", Collections.emptyMap()));
+			List<Container> containers = Arrays.asList(container("db"), container("app"), container("web"));
+			ReadinessChecker checker = new ReadinessChecker(() -> modules, () -> containers,
+					logs("Starting Application", "Started Application in 2.5 seconds"));
+
+			// When
+			ReadinessReport report = checker.awaitReady(Duration.ofSeconds(5));
+
+			// Then
+			assertThat(report.getServices().keySet(), is(new HashSet<>(Arrays.asList("db", "app", "web"))));
+		}
+	}
+
+	@Test
+	public void services_not_ready_before_the_timeout_are_reported() throws IOException {
+		// Given
+		int closedPort;
+		try (ServerSocket server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress())) {
+			closedPort = server.getLocalPort();
+		}
+		List<CarnotzetModule> modules = Arrays.asList(
+				module("db", Collections.singletonMap("readiness.tcp.ports", Integer.toString(closedPort))),
+				module("app", Collections.singletonMap("readiness.log.regex", "Started")));
+		List<Container> containers = Arrays.asList(container("db"), container("app"));
+		ReadinessChecker checker = new ReadinessChecker(() -> modules, () -> containers, logs("Started"));
+
+		// When
+		try {
+			checker.awaitReady(Duration.ofMillis(200));
+			fail("db is not listening");
+		}
+		catch (CarnotzetDefinitionException e) {
+			// Then
+			assertThat(e.getMessage(), is("Services [db] were not ready after [200ms]"));
+			assertTrue(e.getSuppressed()[0].getMessage().endsWith("waiting for tcp port " + closedPort));
+		}
+	}
+
+	@Test
+	public void ports_published_after_the_first_attempt_are_probed() throws IOException {
+		try (ServerSocket server = new ServerSocket(0, 10, InetAddress.getLoopbackAddress())) {
+			// Given
+			AtomicInteger lookups = new AtomicInteger();
+			ContainerInspector logs = logs();
+			ContainerInspector inspector = new ContainerInspector() {
+				@Override
+				public String getHealthStatus(Container container) {
+					return null;
+				}
+
+				@Override
+				public InetSocketAddress getAddress(Container container, int port) {
+					// not published yet on the first lookup
+					return lookups.incrementAndGet() == 1 ? null : new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+				}
+
+				@Override
+				public LogReader openLogs(Container container) {
+					return logs.openLogs(container);
+				}
+			};
+			List<CarnotzetModule> modules = Collections.singletonList(
+					module("db", Collections.singletonMap("readiness.tcp.ports", Integer.toString(server.getLocalPort()))));
+			ReadinessChecker checker = new ReadinessChecker(() -> modules, () -> Collections.singletonList(container("db")), inspector);
+
+			// When
+			ReadinessReport report = checker.awaitReady(Duration.ofSeconds(5));
+
+			// Then
+			assertThat(report.getServices().keySet(), is(Collections.singleton("db")));
+			assertTrue(lookups.get() > 1);
+		}
+	}
+
+	@Test
+	public void connections_closed_right_away_are_not_ready() throws IOException {
+		try (ServerSocket proxy = new ServerSocket(0, 10, InetAddress.getLoopbackAddress())) {
+			// Given
+			// like the docker proxy of a published port, when nothing listens in the container yet
+			Thread thread = new Thread(() -> {
+				try {
+					while (true) {
+						proxy.accept().close();
+					}
+				}
+				catch (IOException e) {
+					// proxy closed
+				}
+			});
+			thread.setDaemon(true);
+			thread.start();
+			List<CarnotzetModule> modules = Collections.singletonList(
+					module("db", Collections.singletonMap("readiness.tcp.ports", Integer.toString(proxy.getLocalPort()))));
+			ReadinessChecker checker = new ReadinessChecker(() -> modules, () -> Collections.singletonList(container("db")), logs());
+
+			// When
+			try {
+				checker.awaitReady(Duration.ofMillis(300));
+				fail("db is not listening behind the proxy");
+			}
+			catch (CarnotzetDefinitionException e) {
+				// Then
+				assertThat(e.getMessage(), is("Services [db] were not ready after [300ms]"));
+			}
+		}
+	}
+
+	@Test(expected = CarnotzetDefinitionException.class)
+	public void awaiting_a_service_that_is_not_running_fails() {
+		ReadinessChecker checker = new ReadinessChecker(Collections::emptyList, Collections::emptyList, logs());
+
+		checker.awaitReady("db", Duration.ofSeconds(1));
+	}
+
+}
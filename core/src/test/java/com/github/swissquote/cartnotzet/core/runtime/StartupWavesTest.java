@@ -0,0 +1,84 @@
+package com.github.swissquote.cartnotzet.core.runtime;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.swissquote.carnotzet.core.CarnotzetModule;
+import com.github.swissquote.carnotzet.core.runtime.StartupWaves;
+
+public class StartupWavesTest {
+
+	private CarnotzetModule module(String name, String... dependencies) {
+		return CarnotzetModule.builder()
+				.name(name)
+				.serviceId(name)
+				.imageName(name)
+				.dependencies(new HashSet<>(Arrays.asList(dependencies)))
+				.build();
+	}
+
+	private List<List<String>> names(List<List<CarnotzetModule>> waves) {
+		return waves.stream().map(wave -> wave.stream().map(CarnotzetModule::getName).collect(toList())).collect(toList());
+	}
+
+	@Test
+	public void independent_modules_start_together() {
+		List<CarnotzetModule> modules = Arrays.asList(module("a"), module("b"), module("c"));
+
+		List<List<CarnotzetModule>> waves = StartupWaves.compute(modules, m -> true);
+
+		assertThat(names(waves), is(Arrays.asList(Arrays.asList("a", "b", "c"))));
+	}
+
+	@Test
+	public void modules_wait_for_their_longest_dependency_chain() {
+		List<CarnotzetModule> modules = Arrays.asList(
+				module("d"),
+				module("e"),
+				module("b", "d"),
+				module("c", "e", "b"),
+				module("a", "b", "c")
+		);
+
+		List<List<CarnotzetModule>> waves = StartupWaves.compute(modules, m -> true);
+
+		assertThat(names(waves), is(Arrays.asList(
+				Arrays.asList("d", "e"),
+				Arrays.asList("b"),
+				Arrays.asList("c"),
+				Arrays.asList("a"))));
+	}
+
+	@Test
+	public void modules_not_started_are_transparent() {
+		List<CarnotzetModule> modules = Arrays.asList(
+				module("db"),
+				module("config", "db"),
+				module("app", "config")
+		);
+
+		List<List<CarnotzetModule>> waves = StartupWaves.compute(modules, m -> !m.getName().equals("config"));
+
+		assertThat(names(waves), is(Arrays.asList(Arrays.asList("db"), Arrays.asList("app"))));
+	}
+
+	@Test
+	public void unknown_dependencies_and_cycles_are_ignored() {
+		List<CarnotzetModule> modules = Arrays.asList(
+				module("a", "b", "not-in-environment"),
+				module("b", "a")
+		);
+
+		List<List<CarnotzetModule>> waves = StartupWaves.compute(modules, m -> true);
+
+		assertThat(waves.stream().mapToInt(List::size).sum(), is(2));
+	}
+
+}
@@ -0,0 +1,116 @@
+package com.github.swissquote.cartnotzet.core.runtime.log;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+import com.github.swissquote.carnotzet.core.runtime.log.ContainerLogManager;
+import com.github.swissquote.carnotzet.core.runtime.log.LogEvent;
+import com.github.swissquote.carnotzet.core.runtime.log.LogEvents;
+import com.github.swissquote.carnotzet.core.runtime.log.LogReader;
+import com.github.swissquote.carnotzet.core.runtime.log.LogSource;
+
+public class ContainerLogManagerTest {
+
+	private static final String END = "";
+
+	private final Container container = new Container("abc", "redis", true, null);
+
+	// lines of the followed stream, END closes it
+	private final BlockingQueue<String> live = new LinkedBlockingQueue<>();
+
+	private final AtomicInteger followed = new AtomicInteger();
+
+	private final CountDownLatch liveLinesTaken = new CountDownLatch(2);
+
+	private final CountDownLatch historyAllowed = new CountDownLatch(1);
+
+	private final LogSource source = (c, since, tail, follow) -> {
+		if (follow) {
+			followed.incrementAndGet();
+			return new LogReader() {
+				@Override
+				public String readLine() throws InterruptedIOException {
+					try {
+						String line = live.take();
+						liveLinesTaken.countDown();
+						return END.equals(line) ? null : line;
+					}
+					catch (InterruptedException e) {
+						throw new InterruptedIOException();
+					}
+				}
+
+				@Override
+				public void close() {
+					live.add(END);
+				}
+			};
+		}
+		Deque<String> history = new ArrayDeque<>(Arrays.asList(
+				"2020-01-01T00:00:01.1Z first",
+				"2020-01-01T00:00:02.2Z second"));
+		return new LogReader() {
+			@Override
+			public String readLine() throws InterruptedIOException {
+				try {
+					historyAllowed.await();
+				}
+				catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+				return history.poll();
+			}
+
+			@Override
+			public void close() {
+				history.clear();
+			}
+		};
+	};
+
+	private static List<String> lines(LogEvents events) {
+		return events.getEvents().stream().map(LogEvent::getLogEntry).collect(toList());
+	}
+
+	@Test
+	public void listeners_share_the_stream_of_a_container() throws Exception {
+		// Given
+		ContainerLogManager manager = new ContainerLogManager(source);
+		LogEvents first = new LogEvents();
+		LogEvents second = new LogEvents();
+		manager.registerLogListener(first, Collections.singletonList(container));
+		manager.registerLogListener(second, Collections.singletonList(container));
+
+		// When
+		// the second line was also read with the previous lines
+		live.add("2020-01-01T00:00:02.2Z second");
+		live.add("2020-01-01T00:00:03.3Z third");
+		assertTrue(liveLinesTaken.await(5, TimeUnit.SECONDS));
+		historyAllowed.countDown();
+
+		// Then
+		first.waitForEntry("redis", "third", 5000, 10);
+		second.waitForEntry("redis", "third", 5000, 10);
+		assertThat(followed.get(), is(1));
+		assertThat(lines(first), is(Arrays.asList("first", "second", "third")));
+		assertThat(lines(second), is(Arrays.asList("first", "second", "third")));
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.github.swissquote.cartnotzet.core.runtime.log;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.github.swissquote.carnotzet.core.runtime.log.CurrentRunLogReader;
+import com.github.swissquote.carnotzet.core.runtime.log.LogReader;
+
+public class CurrentRunLogReaderTest {
+
+	private final AtomicReference<Instant> since = new AtomicReference<>();
+
+	private LogReader logs(String... lines) {
+		Deque<String> remaining = new ArrayDeque<>(Arrays.asList(lines));
+		return new LogReader() {
+			@Override
+			public String readLine() {
+				return remaining.poll();
+			}
+
+			@Override
+			public void close() {
+				remaining.clear();
+			}
+		};
+	}
+
+	private static List<String> readAll(LogReader reader) throws IOException {
+		List<String> lines = new ArrayList<>();
+		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+			lines.add(line);
+		}
+		return lines;
+	}
+
+	@Test
+	public void lines_of_the_previous_runs_are_skipped() throws IOException {
+		// When
+		LogReader reader = CurrentRunLogReader.open("2020-01-01T00:00:10.5Z", "2020-01-01T00:00:10.2Z", s -> {
+			since.set(s);
+			return logs("2020-01-01T00:00:10.1Z Started in 1 second",
+					"2020-01-01T00:00:10.2Z Stopped",
+					"2020-01-01T00:00:10.4Z Starting",
+					"2020-01-01T00:00:11.1Z Started in 0.7 seconds");
+		});
+
+		// Then
+		assertThat(since.get(), is(Instant.parse("2020-01-01T00:00:10.2Z")));
+		// the first line of the current run was logged before StartedAt
+		assertThat(readAll(reader), is(Arrays.asList("Starting", "Started in 0.7 seconds")));
+	}
+
+	@Test
+	public void all_lines_are_read_when_the_container_was_never_stopped() throws IOException {
+		// When
+		LogReader reader = CurrentRunLogReader.open("2020-01-01T00:00:10.5Z", "0001-01-01T00:00:00Z", s -> {
+			since.set(s);
+			return logs("2020-01-01T00:00:10.4Z Starting", "2020-01-01T00:00:11.1Z Started");
+		});
+
+		// Then
+		assertThat(since.get(), is((Instant) null));
+		assertThat(readAll(reader), is(Arrays.asList("Starting", "Started")));
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.github.swissquote.cartnotzet.core.util;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
+import com.github.swissquote.carnotzet.core.util.ConcurrentTasks;
+
+public class ConcurrentTasksTest {
+
+	@Test
+	public void results_are_in_task_order() {
+		// the first task only completes once the last one started
+		CountDownLatch lastStarted = new CountDownLatch(1);
+		Map<String, Callable<String>> tasks = new LinkedHashMap<>();
+		tasks.put("a", () -> lastStarted.await(5, TimeUnit.SECONDS) ? "A" : "timeout");
+		tasks.put("b", () -> "B");
+		tasks.put("c", () -> {
+			lastStarted.countDown();
+			return "C";
+		});
+
+		ConcurrentTasks.Results<String> results = ConcurrentTasks.run(tasks, 3, "test-%d");
+
+		assertThat(results.getValues().keySet().toString(), is("[a, b, c]"));
+		assertThat(results.getValues().values().toString(), is("[A, B, C]"));
+		assertThat(results.getFailures().isEmpty(), is(true));
+	}
+
+	@Test
+	public void all_tasks_run_and_failures_are_reported_together() {
+		Map<String, Runnable> tasks = new LinkedHashMap<>();
+		boolean[] run = new boolean[1];
+		tasks.put("c", () -> {
+			throw new IllegalStateException("c failed");
+		});
+		tasks.put("b", () -> run[0] = true);
+		tasks.put("a", () -> {
+			throw new IllegalStateException("a failed");
+		});
+
+		try {
+			ConcurrentTasks.runAll(tasks, 1, "test-%d", failed -> "Failed " + failed);
+			fail("tasks should fail");
+		}
+		catch (CarnotzetDefinitionException e) {
+			assertThat(e.getMessage(), is("Failed [c, a]"));
+			assertThat(Arrays.stream(e.getSuppressed()).map(Throwable::getMessage).toArray(), is(new Object[] {"c failed", "a failed"}));
+			assertThat(run[0], is(true));
+		}
+	}
+
+}
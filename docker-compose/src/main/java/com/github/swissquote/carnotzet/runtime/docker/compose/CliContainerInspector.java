@@ -0,0 +1,52 @@
+package com.github.swissquote.carnotzet.runtime.docker.compose;
+
+import java.net.InetSocketAddress;
+
+import com.github.swissquote.carnotzet.core.runtime.CommandRunner;
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+import com.github.swissquote.carnotzet.core.runtime.log.CurrentRunLogReader;
+import com.github.swissquote.carnotzet.core.runtime.log.LogReader;
+import com.github.swissquote.carnotzet.core.runtime.readiness.ContainerInspector;
+import com.github.swissquote.carnotzet.core.runtime.readiness.PublishedPorts;
+
+/**
+ * Inspects the containers for the readiness probes with the docker CLI, used when the docker engine API is not reachable
+ */
+/* package */ class CliContainerInspector implements ContainerInspector {
+
+	private final CommandRunner commandRunner;
+
+	/* package */ CliContainerInspector(CommandRunner commandRunner) {
+		this.commandRunner = commandRunner;
+	}
+
+	@Override
+	public String getHealthStatus(Container container) {
+		String status = commandRunner.runCommandAndCaptureOutput("docker", "inspect", "-f",
+				"{{if .State.Health}}{{.State.Health.Status}}{{end}}", container.getId()).trim();
+		return status.isEmpty() ? null : status;
+	}
+
+	@Override
+	public InetSocketAddress getAddress(Container container, int port) {
+		// HostIp:HostPort of the first binding, empty if the port is not published
+		String binding = commandRunner.runCommandAndCaptureOutput("docker", "inspect", "-f",
+				"{{with index .NetworkSettings.Ports \"" + port + "/tcp\"}}{{with index . 0}}{{.HostIp}}:{{.HostPort}}{{end}}{{end}}",
+				container.getId()).trim();
+		int separator = binding.lastIndexOf(':');
+		if (separator < 0) {
+			return ContainerInspector.super.getAddress(container, port);
+		}
+		return PublishedPorts.toAddress(binding.substring(0, separator), Integer.parseInt(binding.substring(separator + 1)),
+				System.getenv("DOCKER_HOST"));
+	}
+
+	@Override
+	public LogReader openLogs(Container container) {
+		String[] state = commandRunner.runCommandAndCaptureOutput("docker", "inspect", "-f",
+				"{{.State.StartedAt}} {{.State.FinishedAt}}", container.getId()).trim().split(" ");
+		return CurrentRunLogReader.open(state[0], state.length > 1 ? state[1] : null,
+				since -> new DockerCliLogReader(container.getId(), since, null, true));
+	}
+
+}
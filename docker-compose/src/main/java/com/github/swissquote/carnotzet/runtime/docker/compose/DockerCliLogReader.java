@@ -0,0 +1,93 @@
+package com.github.swissquote.carnotzet.runtime.docker.compose;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import com.github.swissquote.carnotzet.core.runtime.log.LogReader;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads the logs of a container with a docker logs process, used when the docker engine API is not reachable.<br>
+ * Each line is prefixed by the time it was logged and a space. docker logs writes the stderr of the container on its own stderr,
+ * where the docker CLI also writes its errors (ie: no such container) : the lines without a timestamp are logged, not returned.
+ */
+@Slf4j
+/* package */ final class DockerCliLogReader implements LogReader {
+
+	private final String containerId;
+
+	private final Process process;
+
+	private final BufferedReader reader;
+
+	/**
+	 * Same parameters as docker logs
+	 */
+	/* package */ DockerCliLogReader(String containerId, Instant since, Integer tail, boolean follow) {
+		this.containerId = containerId;
+		List<String> command = Lists.newArrayList("docker", "logs");
+		if (since != null) {
+			command.add("--since");
+			command.add(Long.toString(since.getEpochSecond()));
+		}
+		if (follow) {
+			command.add("--follow");
+		}
+		if (tail != null) {
+			command.add("--tail=" + tail);
+		}
+		command.add("--timestamps");
+		command.add(containerId);
+		log.debug("Reading logs with [{}]", Joiner.on(' ').join(command));
+		try {
+			// the logs written by the container on stderr are written by docker logs on its own stderr, both are read by a single thread
+			this.process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public String readLine() throws IOException {
+		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+			if (isTimestamped(line)) {
+				return line;
+			}
+			log.warn("docker logs [{}] : {}", containerId, line);
+		}
+		return null;
+	}
+
+	private static boolean isTimestamped(String line) {
+		int space = line.indexOf(' ');
+		if (space <= 0) {
+			return false;
+		}
+		try {
+			Instant.parse(line.substring(0, space));
+			return true;
+		}
+		catch (DateTimeParseException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		// destroyed first, so that a blocked readLine() returns and releases the lock of the reader
+		process.destroy();
+		reader.close();
+	}
+
+}
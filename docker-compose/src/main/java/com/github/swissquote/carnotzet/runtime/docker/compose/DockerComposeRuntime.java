@@ -5,6 +5,7 @@ import static java.util.stream.Collectors.toList;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -13,9 +14,13 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -24,34 +29,101 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.SystemUtils;
 
 import com.github.swissquote.carnotzet.core.Carnotzet;
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
 import com.github.swissquote.carnotzet.core.CarnotzetModule;
 import com.github.swissquote.carnotzet.core.docker.DockerUtils;
+import com.github.swissquote.carnotzet.core.docker.engine.ContainerEndpoint;
+import com.github.swissquote.carnotzet.core.docker.engine.ContainerStateTracker;
+import com.github.swissquote.carnotzet.core.docker.engine.ContainerSummary;
+import com.github.swissquote.carnotzet.core.docker.engine.DockerEngineClient;
+import com.github.swissquote.carnotzet.core.docker.engine.EngineContainerInspector;
 import com.github.swissquote.carnotzet.core.docker.registry.DockerRegistry;
+import com.github.swissquote.carnotzet.core.docker.registry.ImagePrefetcher;
 import com.github.swissquote.carnotzet.core.runtime.CommandRunner;
 import com.github.swissquote.carnotzet.core.runtime.DefaultCommandRunner;
+import com.github.swissquote.carnotzet.core.runtime.StartupWaves;
 import com.github.swissquote.carnotzet.core.runtime.api.Container;
 import com.github.swissquote.carnotzet.core.runtime.api.ContainerOrchestrationRuntime;
+import com.github.swissquote.carnotzet.core.runtime.api.ContainerStateListener;
 import com.github.swissquote.carnotzet.core.runtime.api.PullPolicy;
+import com.github.swissquote.carnotzet.core.runtime.log.ContainerLogManager;
 import com.github.swissquote.carnotzet.core.runtime.log.LogListener;
+import com.github.swissquote.carnotzet.core.runtime.log.LogReader;
+import com.github.swissquote.carnotzet.core.runtime.readiness.ContainerInspector;
+import com.github.swissquote.carnotzet.core.runtime.readiness.ReadinessChecker;
+import com.github.swissquote.carnotzet.core.runtime.readiness.ReadinessReport;
+import com.github.swissquote.carnotzet.core.util.ConcurrentTasks;
 import com.google.common.base.Strings;
 import com.google.common.io.Files;
 
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 
+	// same as docker-compose
+	private static final int STOP_TIMEOUT_SECONDS = 10;
+
+	private static final int ENGINE_API_PARALLELISM = 8;
+
 	private final Carnotzet carnotzet;
 
 	private final String instanceId;
 
-	private final DockerLogManager logManager;
+	private final ContainerLogManager logManager;
 
 	private final CommandRunner commandRunner;
 
 	private final Boolean shouldExposePorts;
 
+	/**
+	 * Defines how start() starts the services of the environment, defaults to StartMode.SEQUENTIAL
+	 */
+	@Getter
+	@Setter
+	@NonNull
+	private StartMode startMode = StartMode.SEQUENTIAL;
+
+	/**
+	 * Used in StartMode.WAVES, invoked with the modules of each wave once they are started. It should block until the services are
+	 * ready to be used by the next wave. Defaults to null : the next wave is started as soon as the containers of the previous one are
+	 * created.
+	 */
+	@Getter
+	@Setter
+	private Consumer<List<CarnotzetModule>> waveReadinessCheck;
+
+	/**
+	 * When set, start() waits until this prefetcher pulled the images of the modules, instead of letting docker-compose pull them.
+	 * To overlap the pulls with the resolution of the modules, it must also be installed as the predicted image listener of the
+	 * Carnotzet before the modules are resolved (see Carnotzet#setPredictedImageListener). Defaults to null : images are not prefetched.
+	 */
+	@Getter
+	@Setter
+	private ImagePrefetcher imagePrefetcher;
+
+	/**
+	 * Maximum number of images pulled concurrently when the runtime pulls missing images itself, such as when the exposed ports
+	 * of the images are inspected. Defaults to 1.
+	 */
+	@Getter
+	@Setter
+	private int imagePrefetchParallelism = 1;
+
+	/**
+	 * Used instead of the docker CLI to list, stop and remove the containers when the docker engine API is reachable.
+	 * The state of the containers is then tracked from the events of the docker engine.
+	 * Set to null to always use the docker CLI.
+	 */
+	@Getter
+	private volatile DockerEngineClient engineClient = DockerEngineClient.fromEnv();
+
+	// created on first use, for the current engine client
+	private ContainerStateTracker stateTracker;
+
 	public DockerComposeRuntime(Carnotzet carnotzet) {
 		this(carnotzet, carnotzet.getTopLevelModuleName());
 	}
@@ -69,7 +141,7 @@ public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 		} else {
 			this.instanceId = carnotzet.getTopLevelModuleName();
 		}
-		this.logManager = new DockerLogManager();
+		this.logManager = new ContainerLogManager(this::openLogs);
 		this.commandRunner = commandRunner;
 		this.shouldExposePorts = shouldExposePorts;
 	}
@@ -83,6 +155,7 @@ public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 
 		Map<String, Service> services = new HashMap<>();
 		List<CarnotzetModule> modules = carnotzet.getModules();
+		Map<String, Set<String>> imagesExposedPorts = shouldExposePorts ? getImagesExposedPorts(modules) : null;
 		for (CarnotzetModule module : modules) {
 			if (module.getImageName() == null) {
 				log.debug("Module [{}] has no docker image", module.getName());
@@ -97,7 +170,7 @@ public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 			serviceBuilder.command(DockerUtils.parseEntrypointOrCmd(module.getDockerCmd()));
 			serviceBuilder.env_file(module.getDockerEnvFiles());
 			if (shouldExposePorts) {
-				serviceBuilder.ports(getExposedPorts(module.getImageName(), module.getProperties()));
+				serviceBuilder.ports(getExposedPorts(imagesExposedPorts.get(module.getImageName()), module.getProperties()));
 			}
 
 			Map<String, ContainerNetwork> networks = new HashMap<>();
@@ -175,16 +248,80 @@ public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 
 	@Override
 	public void start() {
+		if (imagePrefetcher != null) {
+			prefetchImages();
+		}
 		log.debug("Forcing update of docker-compose.yml before start");
 		computeDockerComposeFile();
 		Instant start = Instant.now();
-		carnotzet.getModules().stream().filter(this::shouldStartByDefault).forEach(m ->
-				runCommand("docker-compose", "-p", getDockerComposeProjectName(), "up", "-d", m.getServiceId())
-		);
+		List<CarnotzetModule> toStart = carnotzet.getModules().stream().filter(this::shouldStartByDefault).collect(toList());
+		switch (startMode) {
+			case BATCH:
+				startBatch(toStart);
+				break;
+			case WAVES:
+				startWaves();
+				break;
+			default:
+				toStart.forEach(m -> runCommand("docker-compose", "-p", getDockerComposeProjectName(), "up", "-d", m.getServiceId()));
+		}
+		refreshContainerStates();
 		ensureNetworkCommunicationIsPossible();
 		logManager.ensureCapturingLogs(start, getContainers());
 	}
 
+	/**
+	 * Pulls the final images of the modules which were not predicted while the modules were resolved, then waits for all the pulls
+	 */
+	private void prefetchImages() {
+		carnotzet.getModules().forEach(imagePrefetcher);
+		imagePrefetcher.awaitCompletion();
+	}
+
+	private void startWaves() {
+		List<List<CarnotzetModule>> waves = StartupWaves.compute(carnotzet.getModules(), this::shouldStartByDefault);
+		for (int i = 0; i < waves.size(); i++) {
+			List<CarnotzetModule> wave = waves.get(i);
+			log.debug("Starting wave [{}/{}] with services {}", i + 1, waves.size(),
+					wave.stream().map(CarnotzetModule::getServiceId).collect(toList()));
+			startBatch(wave);
+			if (waveReadinessCheck != null) {
+				waveReadinessCheck.accept(wave);
+			}
+		}
+	}
+
+	/**
+	 * Starts all the given modules with a single docker-compose invocation. If it fails, the services that are not running
+	 * afterwards are reported along with their modules.
+	 */
+	private void startBatch(List<CarnotzetModule> modules) {
+		if (modules.isEmpty()) {
+			return;
+		}
+		List<String> command = new ArrayList<>(Arrays.asList("docker-compose", "-p", getDockerComposeProjectName(), "up", "-d"));
+		modules.forEach(m -> command.add(m.getServiceId()));
+		int exitCode = runCommand(command.toArray(new String[command.size()]));
+		refreshContainerStates();
+		if (exitCode == 0) {
+			return;
+		}
+
+		Set<String> running = getContainers().stream()
+				.filter(Container::isRunning)
+				.map(Container::getServiceName)
+				.collect(Collectors.toSet());
+		String failed = modules.stream()
+				.filter(m -> !running.contains(m.getServiceId()))
+				.map(m -> m.getServiceId() + " (module " + m.getName() + ")")
+				.collect(Collectors.joining(", "));
+		if (failed.isEmpty()) {
+			throw new CarnotzetDefinitionException("docker-compose up exited with code [" + exitCode + "]");
+		}
+		throw new CarnotzetDefinitionException("docker-compose up exited with code [" + exitCode + "], "
+				+ "the following services failed to start : [" + failed + "]");
+	}
+
 	private boolean shouldStartByDefault(CarnotzetModule m) {
 		if (m.getImageName() == null) {
 			return false;
@@ -208,6 +345,7 @@ public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 		computeDockerComposeFile();
 		Instant start = Instant.now();
 		runCommand("docker-compose", "-p", getDockerComposeProjectName(), "up", "-d", service);
+		refreshContainerStates();
 		ensureNetworkCommunicationIsPossible();
 		logManager.ensureCapturingLogs(start, Collections.singletonList(getContainer(service)));
 	}
@@ -257,12 +395,21 @@ public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 
 	@Override
 	public void stop() {
+		if (useEngineApi()) {
+			forEachContainer(Container::isRunning, "stop", c -> engineClient.stopContainer(c.getId(), STOP_TIMEOUT_SECONDS));
+			return;
+		}
 		ensureDockerComposeFileIsPresent();
 		runCommand("docker-compose", "-p", getDockerComposeProjectName(), "stop");
 	}
 
 	@Override
 	public void stop(String service) {
+		if (useEngineApi()) {
+			forEachContainer(c -> c.isRunning() && c.getServiceName().equals(service), "stop",
+					c -> engineClient.stopContainer(c.getId(), STOP_TIMEOUT_SECONDS));
+			return;
+		}
 		ensureDockerComposeFileIsPresent();
 		runCommand("docker-compose", "-p", getDockerComposeProjectName(), "stop", service);
 	}
@@ -275,8 +422,12 @@ public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 
 	@Override
 	public void clean() {
-		ensureDockerComposeFileIsPresent();
-		runCommand("docker-compose", "-p", getDockerComposeProjectName(), "rm", "-f");
+		if (useEngineApi()) {
+			forEachContainer(c -> !c.isRunning(), "remove", c -> engineClient.removeContainer(c.getId()));
+		} else {
+			ensureDockerComposeFileIsPresent();
+			runCommand("docker-compose", "-p", getDockerComposeProjectName(), "rm", "-f");
+		}
 		// The resources folder cannot be deleted while the sandbox is running on windows.
 		// So we do it here instead
 		if (SystemUtils.IS_OS_WINDOWS) {
@@ -311,8 +462,13 @@ public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 
 	@Override
 	public void pull(PullPolicy policy) {
-		// We need to check service by service if a newer version exists or not
-		carnotzet.getModules().forEach(module -> pull(module.getServiceId(), policy));
+		pull(policy, 1);
+	}
+
+	@Override
+	public void pull(PullPolicy policy, int parallelism) {
+		// We need to check image by image if a newer version exists or not
+		DockerRegistry.pullImages(carnotzet.getModules(), policy, parallelism);
 	}
 
 	@Override
@@ -331,6 +487,9 @@ public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 
 	@Override
 	public List<Container> getContainers() {
+		if (useEngineApi()) {
+			return getStateTracker().getContainers();
+		}
 		String commandOutput = runCommandAndCaptureOutput("docker-compose", "-p", getDockerComposeProjectName(),
 				"ps", "-q").replaceAll(System.lineSeparator(), " ");
 		log.debug("docker-compose ps output : " + commandOutput);
@@ -360,6 +519,87 @@ public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 
 	}
 
+	private Container toContainer(ContainerSummary summary) {
+		Map<String, String> labels = summary.getLabels() == null ? Collections.emptyMap() : summary.getLabels();
+		String serviceName = labels.getOrDefault("com.docker.compose.service", labels.get("carnotzet.module.service.id"));
+		String ip = null;
+		if (summary.getNetworkSettings() != null && summary.getNetworkSettings().getNetworks() != null) {
+			Map<String, ContainerEndpoint> networks = summary.getNetworkSettings().getNetworks();
+			ContainerEndpoint endpoint = networks.get(getDockerNetworkName());
+			if (endpoint != null && !Strings.isNullOrEmpty(endpoint.getIpAddress())) {
+				ip = endpoint.getIpAddress();
+			} else {
+				ip = networks.values().stream()
+						.map(ContainerEndpoint::getIpAddress)
+						.filter(address -> !Strings.isNullOrEmpty(address))
+						.findFirst().orElse(null);
+			}
+		}
+		return new Container(summary.getId(), serviceName, summary.isRunning(), ip);
+	}
+
+	private boolean useEngineApi() {
+		return engineClient != null && engineClient.isAvailable();
+	}
+
+	public void setEngineClient(DockerEngineClient engineClient) {
+		this.engineClient = engineClient;
+		synchronized (this) {
+			if (stateTracker != null) {
+				stateTracker.close();
+				stateTracker = null;
+			}
+		}
+	}
+
+	private LogReader openLogs(Container container, Instant since, Integer tail, boolean follow) {
+		if (useEngineApi()) {
+			return engineClient.openLogs(container.getId(), since, tail, follow, true);
+		}
+		return new DockerCliLogReader(container.getId(), since, tail, follow);
+	}
+
+	private synchronized ContainerStateTracker getStateTracker() {
+		if (stateTracker == null) {
+			stateTracker = new ContainerStateTracker(engineClient, Collections.singletonMap("carnotzet.instance.id", instanceId),
+					this::toContainer);
+		}
+		return stateTracker;
+	}
+
+	/**
+	 * Updates the tracked containers right away after changing them, instead of waiting for the docker events
+	 */
+	private void refreshContainerStates() {
+		if (useEngineApi()) {
+			getStateTracker().refresh();
+		}
+	}
+
+	/**
+	 * Applies an engine API call concurrently to the containers matching the filter, like docker-compose does.
+	 * All the containers are processed even if some of them fail, failures are reported together.
+	 */
+	private void forEachContainer(Predicate<Container> filter, String action, Consumer<Container> call) {
+		// listed again rather than read from the tracker, which may not have received the latest events yet
+		List<Container> containers = engineClient.listContainers(Collections.singletonMap("carnotzet.instance.id", instanceId)).stream()
+				.map(this::toContainer)
+				.filter(filter)
+				.collect(toList());
+		if (containers.isEmpty()) {
+			return;
+		}
+		Map<String, Runnable> calls = new LinkedHashMap<>();
+		containers.forEach(c -> calls.put(c.getServiceName(), () -> call.accept(c)));
+		try {
+			ConcurrentTasks.runAll(calls, ENGINE_API_PARALLELISM, "carnotzet-engine-%d",
+					failed -> "Failed to " + action + " the containers of services " + failed);
+		}
+		finally {
+			refreshContainerStates();
+		}
+	}
+
 	@Override
 	public Container getContainer(String serviceName) {
 		return getContainers().stream().filter(c -> c.getServiceName().equals(serviceName)).findFirst().orElse(null);
@@ -371,9 +611,41 @@ public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 		logManager.registerLogListener(listener, getContainers());
 	}
 
+	@Override
+	public void registerContainerStateListener(ContainerStateListener listener) {
+		if (!useEngineApi()) {
+			throw new UnsupportedOperationException("The state of the containers can only be tracked through the docker engine API, "
+					+ "which is not reachable");
+		}
+		getStateTracker().addListener(listener);
+	}
+
+	@Override
+	public ReadinessReport awaitReady(Duration timeout) {
+		return getReadinessChecker().awaitReady(timeout);
+	}
+
+	@Override
+	public ReadinessReport awaitReady(String service, Duration timeout) {
+		return getReadinessChecker().awaitReady(service, timeout);
+	}
+
+	private ReadinessChecker getReadinessChecker() {
+		ContainerInspector inspector;
+		if (useEngineApi()) {
+			inspector = new EngineContainerInspector(engineClient);
+		} else {
+			ensureDockerComposeFileIsPresent();
+			inspector = new CliContainerInspector(commandRunner);
+		}
+		return new ReadinessChecker(carnotzet::getModules, this::getContainers, inspector);
+	}
+
 	@Override
 	public boolean isRunning() {
-		ensureDockerComposeFileIsPresent();
+		if (!useEngineApi()) {
+			ensureDockerComposeFileIsPresent();
+		}
 		return getContainers().stream().anyMatch(Container::isRunning);
 	}
 
@@ -399,23 +671,76 @@ public class DockerComposeRuntime implements ContainerOrchestrationRuntime {
 	}
 
 	public void clean(String service) {
+		if (useEngineApi()) {
+			forEachContainer(c -> !c.isRunning() && c.getServiceName().equals(service), "remove", c -> engineClient.removeContainer(c.getId()));
+			return;
+		}
 		runCommand("docker-compose", "-p", getDockerComposeProjectName(), "rm", "-f", service);
 	}
 
 	private final static Pattern PORT_PATTERN = Pattern.compile(".*?(\\d*\\/\\w*)");
 
-	private Set<String> getExposedPorts(String dockerImage, Map<String, String> props) {
-
-		Map<String, String> mapping = new HashMap<>();
+	/**
+	 * Ports exposed by the images, by image id. Images with the same id expose the same ports.
+	 */
+	private final Map<String, Set<String>> exposedPortsByImageId = new HashMap<>();
+
+	/**
+	 * Finds the ports exposed by the images of the given modules with a single docker inspect invocation. Images are only
+	 * pulled if some of them are missing from the local docker host.
+	 *
+	 * @return the exposed ports, by image name
+	 */
+	private Map<String, Set<String>> getImagesExposedPorts(List<CarnotzetModule> modules) {
+		List<String> images = modules.stream()
+				.map(CarnotzetModule::getImageName)
+				.filter(Objects::nonNull)
+				.distinct()
+				.collect(toList());
+		if (images.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		List<String> command = new ArrayList<>(Arrays.asList("docker", "inspect", "--type=image", "--format={{.Id}} {{json .Config.ExposedPorts}}"));
+		command.addAll(images);
+		String output;
+		try {
+			output = commandRunner.runCommandAndCaptureOutput(command.toArray(new String[command.size()]));
+		}
+		catch (RuntimeException e) {
+			log.debug("Could not inspect all images, pulling the missing ones", e);
+			DockerRegistry.pullImages(modules, PullPolicy.IF_LOCAL_IMAGE_ABSENT, imagePrefetchParallelism);
+			output = commandRunner.runCommandAndCaptureOutput(command.toArray(new String[command.size()]));
+		}
 
-		// lower priority
-		pull(PullPolicy.IF_LOCAL_IMAGE_ABSENT);
-		String output = commandRunner.runCommandAndCaptureOutput("docker", "inspect", "--format={{ .Config.ExposedPorts }}", dockerImage);
-		Matcher m = PORT_PATTERN.matcher(output);
+		// one line per image, in the order of the arguments
+		String[] lines = output.split("\\r?\\n");
+		if (lines.length != images.size()) {
+			throw new CarnotzetDefinitionException("Unexpected output of docker inspect for images " + images + " : " + output);
+		}
+		Map<String, Set<String>> result = new HashMap<>();
+		for (int i = 0; i < lines.length; i++) {
+			String[] idAndPorts = lines[i].trim().split(" ", 2);
+			String ports = idAndPorts.length > 1 ? idAndPorts[1] : "";
+			result.put(images.get(i), exposedPortsByImageId.computeIfAbsent(idAndPorts[0], id -> parseExposedPorts(ports)));
+		}
+		return result;
+	}
 
+	private static Set<String> parseExposedPorts(String exposedPorts) {
+		Set<String> result = new HashSet<>();
+		Matcher m = PORT_PATTERN.matcher(exposedPorts);
 		while (m.find()) {
-			mapping.put(m.group(1), null);
+			result.add(m.group(1));
 		}
+		return result;
+	}
+
+	private Set<String> getExposedPorts(Set<String> imageExposedPorts, Map<String, String> props) {
+
+		Map<String, String> mapping = new HashMap<>();
+
+		// lower priority
+		imageExposedPorts.forEach(port -> mapping.put(port, null));
 
 		// static mappings defined in .properties file
 		String customPorts = props.get("exposed.ports");
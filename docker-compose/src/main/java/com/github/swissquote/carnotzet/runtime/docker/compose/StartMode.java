@@ -0,0 +1,24 @@
+package com.github.swissquote.carnotzet.runtime.docker.compose;
+
+/**
+ * Defines how the services of an environment are started by {@link DockerComposeRuntime#start()}
+ */
+public enum StartMode {
+
+	/**
+	 * One docker-compose invocation per service, services are started one after the other.
+	 */
+	SEQUENTIAL,
+
+	/**
+	 * A single docker-compose invocation for all services, docker-compose creates the containers concurrently.
+	 */
+	BATCH,
+
+	/**
+	 * Services are started in waves computed from the dependencies between modules : all the services of a wave are started with a
+	 * single docker-compose invocation, once all the services they depend on have been started by previous waves.
+	 */
+	WAVES
+
+}
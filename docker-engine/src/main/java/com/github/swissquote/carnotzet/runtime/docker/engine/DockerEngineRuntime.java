@@ -0,0 +1,586 @@
+package com.github.swissquote.carnotzet.runtime.docker.engine;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.SystemUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.swissquote.carnotzet.core.Carnotzet;
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
+import com.github.swissquote.carnotzet.core.CarnotzetModule;
+import com.github.swissquote.carnotzet.core.docker.DockerUtils;
+import com.github.swissquote.carnotzet.core.docker.engine.ContainerEndpoint;
+import com.github.swissquote.carnotzet.core.docker.engine.ContainerStateTracker;
+import com.github.swissquote.carnotzet.core.docker.engine.ContainerSummary;
+import com.github.swissquote.carnotzet.core.docker.engine.DockerEngineClient;
+import com.github.swissquote.carnotzet.core.docker.engine.EngineContainerInspector;
+import com.github.swissquote.carnotzet.core.docker.registry.DockerRegistry;
+import com.github.swissquote.carnotzet.core.runtime.api.Container;
+import com.github.swissquote.carnotzet.core.runtime.api.ContainerOrchestrationRuntime;
+import com.github.swissquote.carnotzet.core.runtime.api.ContainerStateListener;
+import com.github.swissquote.carnotzet.core.runtime.api.PullPolicy;
+import com.github.swissquote.carnotzet.core.runtime.log.ContainerLogManager;
+import com.github.swissquote.carnotzet.core.runtime.log.LogListener;
+import com.github.swissquote.carnotzet.core.runtime.readiness.ReadinessChecker;
+import com.github.swissquote.carnotzet.core.runtime.readiness.ReadinessReport;
+import com.github.swissquote.carnotzet.core.util.ConcurrentTasks;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the environment by calling the docker engine API directly, without generating a docker-compose.yml file nor invoking
+ * docker-compose.<br>
+ * Networks, containers, aliases and labels are the same as the ones created by the docker-compose runtime, the containers also carry
+ * the labels of docker-compose so that docker-compose recognizes them. Containers are created and started concurrently, a container
+ * is only re-created when its configuration or its image changed.
+ */
+@Slf4j
+public class DockerEngineRuntime implements ContainerOrchestrationRuntime {
+
+	private static final String CONFIG_HASH_LABEL = "carnotzet.config.hash";
+
+	// name of the network in the docker-compose.yml of the docker-compose runtime
+	private static final String NETWORK = "carnotzet";
+
+	// same as docker-compose
+	private static final int STOP_TIMEOUT_SECONDS = 10;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final Carnotzet carnotzet;
+
+	private final String instanceId;
+
+	private final DockerEngineClient client;
+
+	private final ContainerLogManager logManager;
+
+	private final ContainerStateTracker stateTracker;
+
+	private final boolean shouldExposePorts;
+
+	/**
+	 * Maximum number of containers created, stopped or removed concurrently, defaults to 8
+	 */
+	@Getter
+	@Setter
+	private int parallelism = 8;
+
+	public DockerEngineRuntime(Carnotzet carnotzet) {
+		this(carnotzet, carnotzet.getTopLevelModuleName());
+	}
+
+	public DockerEngineRuntime(Carnotzet carnotzet, String instanceId) {
+		// Due to limitations in docker for mac and windows, mapping local ports to container ports is the preferred technique for those users.
+		// https://docs.docker.com/docker-for-mac/networking/#i-cannot-ping-my-containers
+		this(carnotzet, instanceId, DockerEngineClient.fromEnv(), SystemUtils.IS_OS_MAC || SystemUtils.IS_OS_WINDOWS);
+	}
+
+	public DockerEngineRuntime(Carnotzet carnotzet, String instanceId, @NonNull DockerEngineClient client, boolean shouldExposePorts) {
+		this.carnotzet = carnotzet;
+		this.instanceId = instanceId == null ? carnotzet.getTopLevelModuleName() : instanceId;
+		this.client = client;
+		this.logManager = new ContainerLogManager(
+				(container, since, tail, follow) -> client.openLogs(container.getId(), since, tail, follow, true));
+		this.stateTracker = new ContainerStateTracker(client, Collections.singletonMap("carnotzet.instance.id", this.instanceId),
+				summary -> getServiceName(summary) == null ? null : toContainer(summary));
+		this.shouldExposePorts = shouldExposePorts;
+	}
+
+	@Override
+	public void start() {
+		startModules(carnotzet.getModules().stream().filter(this::shouldStartByDefault).collect(toList()));
+	}
+
+	@Override
+	public void start(String service) {
+		startModules(Collections.singletonList(getModule(service)));
+	}
+
+	private void startModules(List<CarnotzetModule> modules) {
+		ensureEngineIsAvailable();
+		// docker-compose pulls the missing images when creating the containers
+		Map<String, JsonNode> images = new ConcurrentHashMap<>();
+		List<CarnotzetModule> missingImages = modules.stream().filter(m -> !inspectImage(m.getImageName(), images)).collect(toList());
+		DockerRegistry.pullImages(missingImages, PullPolicy.IF_LOCAL_IMAGE_ABSENT, parallelism);
+		client.createNetwork(getDockerNetworkName(), getLabels(null, Collections.emptySet()));
+
+		Map<String, ContainerSummary> existing = listContainers().stream()
+				.filter(c -> getServiceName(c) != null)
+				.collect(Collectors.toMap(this::getServiceName, c -> c, (c1, c2) -> c1));
+		Instant start = Instant.now();
+		Map<String, Runnable> tasks = new LinkedHashMap<>();
+		modules.forEach(m -> tasks.put(m.getServiceId(), () -> startContainer(m, existing.get(m.getServiceId()), images)));
+		try {
+			runConcurrently(tasks, "start");
+		}
+		finally {
+			stateTracker.refresh();
+		}
+
+		ensureNetworkCommunicationIsPossible();
+		logManager.ensureCapturingLogs(start, getContainers());
+	}
+
+	/**
+	 * @param images the result of the inspection is added to these images when the image exists
+	 * @return false if the image does not exist on the docker host
+	 */
+	private boolean inspectImage(String imageName, Map<String, JsonNode> images) {
+		if (images.containsKey(imageName)) {
+			return true;
+		}
+		JsonNode inspected = client.inspectImage(imageName);
+		if (inspected != null) {
+			images.put(imageName, inspected);
+		}
+		return inspected != null;
+	}
+
+	private void startContainer(CarnotzetModule module, ContainerSummary existing, Map<String, JsonNode> images) {
+		JsonNode image = images.computeIfAbsent(module.getImageName(), name -> {
+			JsonNode inspected = client.inspectImage(name);
+			if (inspected == null) {
+				throw new CarnotzetDefinitionException("Image [" + name + "] of service [" + module.getServiceId() + "] is not available");
+			}
+			return inspected;
+		});
+		Map<String, Object> config = getContainerConfig(module, image);
+		String configHash;
+		try {
+			configHash = Hashing.sha256().hashString(image.path("Id").asText() + MAPPER.writeValueAsString(config), StandardCharsets.UTF_8)
+					.toString();
+		}
+		catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, String> labels = (Map<String, String>) config.get("Labels");
+		labels.put(CONFIG_HASH_LABEL, configHash);
+
+		if (existing != null) {
+			if (existing.getLabels() != null && configHash.equals(existing.getLabels().get(CONFIG_HASH_LABEL))) {
+				log.debug("Container of service [{}] is up to date", module.getServiceId());
+				client.startContainer(existing.getId());
+				return;
+			}
+			log.debug("Re-creating the container of service [{}]", module.getServiceId());
+			client.removeContainer(existing.getId(), true);
+		}
+		String id = client.createContainer(getContainerName(module), config);
+		client.startContainer(id);
+	}
+
+	/**
+	 * Body of the container creation request, equivalent to the service generated in docker-compose.yml by the docker-compose runtime
+	 */
+	private Map<String, Object> getContainerConfig(CarnotzetModule module, JsonNode image) {
+		Set<String> networkAliases = getNetworkAliases(module);
+
+		Map<String, Object> hostConfig = new LinkedHashMap<>();
+		hostConfig.put("Binds", module.getDockerVolumes() == null ? Collections.emptyList() : new TreeSet<>(module.getDockerVolumes()));
+		hostConfig.put("ExtraHosts", lookUpExtraHosts(module));
+		hostConfig.put("NetworkMode", getDockerNetworkName());
+
+		Map<String, Object> config = new LinkedHashMap<>();
+		config.put("Image", module.getImageName());
+		List<String> entrypoint = DockerUtils.parseEntrypointOrCmd(module.getDockerEntrypoint());
+		if (entrypoint != null) {
+			config.put("Entrypoint", entrypoint);
+		}
+		List<String> cmd = DockerUtils.parseEntrypointOrCmd(module.getDockerCmd());
+		if (cmd != null) {
+			config.put("Cmd", cmd);
+		}
+		config.put("Env", readEnvFiles(module));
+		config.put("Labels", getLabels(module, networkAliases));
+		if (shouldExposePorts) {
+			Map<String, Object> exposedPorts = new LinkedHashMap<>();
+			Map<String, Object> portBindings = new LinkedHashMap<>();
+			getExposedPorts(image, module.getProperties()).forEach((containerPort, hostPort) -> {
+				exposedPorts.put(containerPort, Collections.emptyMap());
+				portBindings.put(containerPort, Collections.singletonList(Collections.singletonMap("HostPort", hostPort == null ? "" : hostPort)));
+			});
+			config.put("ExposedPorts", exposedPorts);
+			hostConfig.put("PortBindings", portBindings);
+		}
+		config.put("HostConfig", hostConfig);
+		config.put("NetworkingConfig", Collections.singletonMap("EndpointsConfig",
+				Collections.singletonMap(getDockerNetworkName(), Collections.singletonMap("Aliases", networkAliases))));
+		return config;
+	}
+
+	private Set<String> getNetworkAliases(CarnotzetModule module) {
+		Set<String> networkAliases = new TreeSet<>();
+		if (module.getProperties() != null && module.getProperties().containsKey("network.aliases")) {
+			Arrays.stream(module.getProperties().get("network.aliases").split(",")).map(String::trim).forEach(networkAliases::add);
+		}
+
+		// Carnotzet semantics name
+		networkAliases.add(module.getServiceId() + ".docker");
+		networkAliases.add(instanceId + "." + module.getServiceId() + ".docker");
+
+		// Legacy compat (default dnsdock pattern)
+		networkAliases.add(module.getShortImageName() + ".docker");
+		networkAliases.add(instanceId + "_" + module.getServiceId() + "." + module.getShortImageName() + ".docker");
+		return networkAliases;
+	}
+
+	/**
+	 * @param module null for the labels of the network
+	 */
+	private Map<String, String> getLabels(CarnotzetModule module, Set<String> networkAliases) {
+		// sorted, so that the configuration hash does not depend on the order of the labels
+		Map<String, String> labels = new TreeMap<>();
+		if (module != null) {
+			if (module.getLabels() != null) {
+				labels.putAll(module.getLabels());
+			}
+			labels.put("com.dnsdock.alias", String.join(",", networkAliases));
+			labels.put("carnotzet.module.name", module.getName());
+			labels.put("carnotzet.module.service.id", module.getServiceId());
+		}
+		labels.put("carnotzet.instance.id", instanceId);
+		labels.put("carnotzet.top.level.module.name", carnotzet.getTopLevelModuleName());
+
+		// docker-compose finds its containers and networks by label, not by name
+		labels.put("com.docker.compose.project", getProjectName());
+		if (module == null) {
+			labels.put("com.docker.compose.network", NETWORK);
+		} else {
+			labels.put("com.docker.compose.service", module.getServiceId());
+			labels.put("com.docker.compose.container-number", "1");
+			labels.put("com.docker.compose.oneoff", "False");
+		}
+		return labels;
+	}
+
+	private List<String> lookUpExtraHosts(CarnotzetModule m) {
+		if (m.getProperties() == null || !m.getProperties().containsKey("extra.hosts")) {
+			return Collections.emptyList();
+		}
+		return Arrays.stream(m.getProperties().get("extra.hosts").split(",")).map(String::trim).collect(toList());
+	}
+
+	/**
+	 * Variables of the env files of the module, files are read in order and the last value of a variable wins
+	 * (same as env_file in docker-compose.yml)
+	 */
+	private List<String> readEnvFiles(CarnotzetModule module) {
+		Map<String, String> variables = new LinkedHashMap<>();
+		if (module.getDockerEnvFiles() == null) {
+			return Collections.emptyList();
+		}
+		for (String envFile : new TreeSet<>(module.getDockerEnvFiles())) {
+			List<String> lines;
+			try {
+				lines = Files.readAllLines(carnotzet.getResourcesFolder().resolve(Paths.get(envFile)), StandardCharsets.UTF_8);
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException("Failed to read env file [" + envFile + "] of service [" + module.getServiceId() + "]", e);
+			}
+			for (String line : lines) {
+				String trimmed = line.trim();
+				if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+					continue;
+				}
+				int equals = trimmed.indexOf('=');
+				if (equals < 0) {
+					// variable without value, taken from the environment if it is set
+					String value = System.getenv(trimmed);
+					if (value != null) {
+						variables.put(trimmed, trimmed + "=" + value);
+					}
+				} else {
+					variables.put(trimmed.substring(0, equals), trimmed);
+				}
+			}
+		}
+		return new ArrayList<>(variables.values());
+	}
+
+	/**
+	 * @return the ports exposed by the image and the ones in the exposed.ports property, mapped to their host port (null when
+	 * the host port is chosen by docker)
+	 */
+	private Map<String, String> getExposedPorts(JsonNode image, Map<String, String> props) {
+		Map<String, String> mapping = new LinkedHashMap<>();
+
+		// lower priority
+		Iterator<String> imagePorts = image.path("Config").path("ExposedPorts").fieldNames();
+		imagePorts.forEachRemaining(port -> mapping.put(port, null));
+
+		// static mappings defined in .properties file
+		String customPorts = props == null ? null : props.get("exposed.ports");
+		if (customPorts != null && !customPorts.isEmpty()) {
+			for (String port : customPorts.split(",")) {
+				String[] parts = port.split(":");
+				String containerPort = parts[1].trim();
+				// Default
+				if (!containerPort.contains("/")) {
+					containerPort = containerPort + "/tcp";
+				}
+				if (!mapping.containsKey(containerPort)) {
+					log.warn("Manually exposed.port [{}] in .properties file but image doesn't expose this port.", containerPort);
+				}
+				mapping.put(containerPort, parts[0].trim());
+			}
+		}
+		return mapping;
+	}
+
+	private boolean shouldStartByDefault(CarnotzetModule m) {
+		if (m.getImageName() == null) {
+			return false;
+		}
+		if (m.getProperties() == null) {
+			return true;
+		}
+		String str = m.getProperties().get("start.by.default");
+		return str == null || !str.trim().equalsIgnoreCase("false");
+	}
+
+	/**
+	 * Connects the current container to the network of the environment, when running inside of a container (ie: CI builds)
+	 */
+	private void ensureNetworkCommunicationIsPossible() {
+		if (!SystemUtils.IS_OS_LINUX) {
+			return;
+		}
+		JsonNode buildContainer;
+		try {
+			// the hostname of a container is its short id by default
+			buildContainer = client.inspectContainer(InetAddress.getLocalHost().getHostName());
+		}
+		catch (UnknownHostException | RuntimeException e) {
+			log.debug("Could not find out if running inside of a container", e);
+			return;
+		}
+		if (buildContainer == null) {
+			// we are probably not running inside a container, networking should be fine
+			return;
+		}
+		String containerToConnect = buildContainer.path("Id").asText();
+		String networkMode = buildContainer.path("HostConfig").path("NetworkMode").asText();
+		// shared network stack
+		if (networkMode.startsWith("container:")) {
+			containerToConnect = networkMode.replace("container:", "");
+		}
+		log.debug("attaching container [" + containerToConnect + "] to network [" + getDockerNetworkName() + "]");
+		client.connectNetwork(getDockerNetworkName(), containerToConnect);
+	}
+
+	private String getProjectName() {
+		// same as the docker-compose project name
+		return instanceId.replaceAll("[^A-Za-z0-9]", "").toLowerCase();
+	}
+
+	private String getDockerNetworkName() {
+		return getProjectName() + "_" + NETWORK;
+	}
+
+	private String getContainerName(CarnotzetModule module) {
+		return getProjectName() + "_" + module.getServiceId() + "_1";
+	}
+
+	private CarnotzetModule getModule(String service) {
+		return carnotzet.getModuleByServiceId(service).orElseThrow(() -> new IllegalArgumentException("No such service: " + service));
+	}
+
+	@Override
+	public void stop() {
+		forEachContainer(ContainerSummary::isRunning, "stop", c -> client.stopContainer(c.getId(), STOP_TIMEOUT_SECONDS));
+	}
+
+	@Override
+	public void stop(String service) {
+		forEachContainer(c -> c.isRunning() && service.equals(getServiceName(c)), "stop",
+				c -> client.stopContainer(c.getId(), STOP_TIMEOUT_SECONDS));
+	}
+
+	@Override
+	public void clean() {
+		forEachContainer(c -> !c.isRunning(), "remove", c -> client.removeContainer(c.getId()));
+		// The resources folder cannot be deleted while the sandbox is running on windows.
+		// So we do it here instead
+		if (SystemUtils.IS_OS_WINDOWS) {
+			try {
+				FileUtils.deleteDirectory(carnotzet.getResourcesFolder().toFile());
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	@Override
+	public void clean(String service) {
+		forEachContainer(c -> !c.isRunning() && service.equals(getServiceName(c)), "remove", c -> client.removeContainer(c.getId()));
+	}
+
+	@Override
+	public void status() {
+		List<Container> containers = getContainers();
+		String format = "%-40s %-10s %s%n";
+		System.out.printf(format, "Service", "State", "IP");
+		containers.forEach(c -> System.out.printf(format, c.getServiceName(), c.isRunning() ? "Up" : "Exit", Strings.nullToEmpty(c.getIp())));
+	}
+
+	@Override
+	public void shell(Container container) {
+		// an interactive tty is much simpler to handle through the docker CLI
+		try {
+			Process process = new ProcessBuilder("docker", "exec", "-it", container.getId(), "/bin/bash").inheritIO().start();
+			process.waitFor();
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Cannot execute docker exec", ex);
+		}
+		catch (InterruptedException e) {
+			//exit
+		}
+	}
+
+	@Override
+	public void pull() {
+		pull(PullPolicy.ALWAYS);
+	}
+
+	@Override
+	public void pull(PullPolicy policy) {
+		pull(policy, 1);
+	}
+
+	@Override
+	public void pull(PullPolicy policy, int parallelism) {
+		DockerRegistry.pullImages(carnotzet.getModules(), policy, parallelism);
+	}
+
+	@Override
+	public void pull(@NonNull String service) {
+		pull(service, PullPolicy.ALWAYS);
+	}
+
+	@Override
+	public void pull(@NonNull String service, PullPolicy policy) {
+		DockerRegistry.pullImage(getModule(service), policy);
+	}
+
+	@Override
+	public List<Container> getContainers() {
+		ensureEngineIsAvailable();
+		return stateTracker.getContainers();
+	}
+
+	@Override
+	public Container getContainer(String serviceName) {
+		return getContainers().stream().filter(c -> c.getServiceName().equals(serviceName)).findFirst().orElse(null);
+	}
+
+	@Override
+	public void registerLogListener(LogListener listener) {
+		logManager.registerLogListener(listener, getContainers());
+	}
+
+	@Override
+	public void registerContainerStateListener(ContainerStateListener listener) {
+		ensureEngineIsAvailable();
+		stateTracker.addListener(listener);
+	}
+
+	@Override
+	public ReadinessReport awaitReady(Duration timeout) {
+		return getReadinessChecker().awaitReady(timeout);
+	}
+
+	@Override
+	public ReadinessReport awaitReady(String service, Duration timeout) {
+		return getReadinessChecker().awaitReady(service, timeout);
+	}
+
+	private ReadinessChecker getReadinessChecker() {
+		return new ReadinessChecker(carnotzet::getModules, this::getContainers, new EngineContainerInspector(client));
+	}
+
+	@Override
+	public boolean isRunning() {
+		return getContainers().stream().anyMatch(Container::isRunning);
+	}
+
+	private List<ContainerSummary> listContainers() {
+		ensureEngineIsAvailable();
+		return client.listContainers(Collections.singletonMap("carnotzet.instance.id", instanceId));
+	}
+
+	private void ensureEngineIsAvailable() {
+		if (!client.isAvailable()) {
+			throw new CarnotzetDefinitionException("The docker engine API is not reachable through [" + client.getDockerHost() + "]");
+		}
+	}
+
+	private String getServiceName(ContainerSummary summary) {
+		return summary.getLabels() == null ? null : summary.getLabels().get("carnotzet.module.service.id");
+	}
+
+	private Container toContainer(ContainerSummary summary) {
+		String ip = null;
+		if (summary.getNetworkSettings() != null && summary.getNetworkSettings().getNetworks() != null) {
+			ContainerEndpoint endpoint = summary.getNetworkSettings().getNetworks().get(getDockerNetworkName());
+			ip = endpoint == null || Strings.isNullOrEmpty(endpoint.getIpAddress()) ? null : endpoint.getIpAddress();
+		}
+		return new Container(summary.getId(), getServiceName(summary), summary.isRunning(), ip);
+	}
+
+	/**
+	 * Runs the tasks concurrently, all tasks are run even if some of them fail and failures are reported together
+	 *
+	 * @param tasks by service name
+	 */
+	private void runConcurrently(Map<String, Runnable> tasks, String action) {
+		ConcurrentTasks.runAll(tasks, parallelism, "carnotzet-engine-%d", failed -> "Failed to " + action + " services " + failed);
+	}
+
+	private void forEachContainer(Predicate<ContainerSummary> filter, String action, Consumer<ContainerSummary> call) {
+		Map<String, Runnable> tasks = new LinkedHashMap<>();
+		listContainers().stream().filter(filter).forEach(c -> tasks.put(getServiceName(c) + " (" + c.getId() + ")", () -> call.accept(c)));
+		try {
+			runConcurrently(tasks, action);
+		}
+		finally {
+			stateTracker.refresh();
+		}
+	}
+
+}
@@ -0,0 +1,296 @@
+package com.github.swissquote.cartnotzet.runtime.docker.engine;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.swissquote.carnotzet.core.Carnotzet;
+import com.github.swissquote.carnotzet.core.CarnotzetConfig;
+import com.github.swissquote.carnotzet.core.CarnotzetModule;
+import com.github.swissquote.carnotzet.core.docker.engine.DockerEngineClient;
+import com.github.swissquote.carnotzet.core.maven.CarnotzetModuleCoordinates;
+import com.github.swissquote.carnotzet.runtime.docker.engine.DockerEngineRuntime;
+
+public class DockerEngineRuntimeTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	private ServerSocket server;
+
+	// request lines followed by their body, if any
+	private final List<String> requests = new CopyOnWriteArrayList<>();
+
+	private final AtomicReference<String> containersJson = new AtomicReference<>("[]");
+
+	private final List<OutputStream> eventStreams = new CopyOnWriteArrayList<>();
+
+	private DockerEngineClient client;
+
+	private Carnotzet carnotzet;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		Thread thread = new Thread(this::serve);
+		thread.setDaemon(true);
+		thread.start();
+		client = new DockerEngineClient("tcp://127.0.0.1:" + server.getLocalPort());
+
+		Path first = temp.newFile("a.env").toPath();
+		Files.write(first, Arrays.asList("# comment", "", "A=1", "B=2"), StandardCharsets.UTF_8);
+		Path second = temp.newFile("b.env").toPath();
+		Files.write(second, Arrays.asList(" B=3 ", "C=x=y", "CARNOTZET_UNSET_VARIABLE", "PATH"), StandardCharsets.UTF_8);
+
+		Map<String, String> properties = new HashMap<>();
+		properties.put("network.aliases", "cache, store");
+		properties.put("exposed.ports", "6380:6379");
+		properties.put("extra.hosts", "host1:10.0.0.1");
+		CarnotzetModule redis = CarnotzetModule.builder()
+				.id(new CarnotzetModuleCoordinates("com.test", "redis-carnotzet", "1"))
+				.name("redis")
+				.serviceId("redis")
+				.topLevelModuleName("app")
+				.imageName("redis:3")
+				.properties(properties)
+				.labels(Collections.singletonMap("team", "core"))
+				.dockerEnvFiles(new LinkedHashSet<>(Arrays.asList(second.toString(), first.toString())))
+				.build();
+		CarnotzetConfig config = CarnotzetConfig.builder()
+				.topLevelModuleId(new CarnotzetModuleCoordinates("com.test", "app-carnotzet", "1"))
+				.resourcesPath(temp.newFolder("resources").toPath())
+				.build();
+		carnotzet = new Carnotzet(config) {
+			@Override
+			public List<CarnotzetModule> getModules() {
+				return Collections.singletonList(redis);
+			}
+		};
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		server.close();
+		for (OutputStream events : eventStreams) {
+			events.close();
+		}
+	}
+
+	/**
+	 * Fake docker engine : one image, containers listed from containersJson, created containers get the id "created"
+	 */
+	private void serve() {
+		try {
+			while (!server.isClosed()) {
+				Socket socket = server.accept();
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+				String request = reader.readLine();
+				int contentLength = 0;
+				for (String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+					if (line.toLowerCase().startsWith("content-length:")) {
+						contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+					}
+				}
+				char[] body = new char[contentLength];
+				for (int read = 0; read < contentLength; ) {
+					read += reader.read(body, read, contentLength - read);
+				}
+				requests.add(contentLength == 0 ? request : request + " " + new String(body));
+
+				OutputStream out = socket.getOutputStream();
+				if (request.startsWith("GET /v1.25/events?")) {
+					out.write("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+					out.flush();
+					eventStreams.add(out);
+					continue;
+				}
+				if (request.startsWith("GET /v1.25/_ping ")) {
+					respond(out, 200, "OK");
+				} else if (request.startsWith("GET /v1.25/containers/json?")) {
+					respond(out, 200, containersJson.get());
+				} else if (request.startsWith("GET /v1.25/images/redis%3A3/json ")) {
+					respond(out, 200, "{\"Id\":\"sha256:1\",\"Config\":{\"ExposedPorts\":{\"6379/tcp\":{},\"16379/tcp\":{}}}}");
+				} else if (request.startsWith("POST /v1.25/networks/create ")) {
+					respond(out, 201, "{}");
+				} else if (request.startsWith("POST /v1.25/containers/create?")) {
+					respond(out, 201, "{\"Id\":\"created\"}");
+				} else if (request.startsWith("POST /v1.25/containers/") || request.startsWith("DELETE /v1.25/containers/")) {
+					respond(out, 204, "");
+				} else {
+					respond(out, 404, "{\"message\":\"not found\"}");
+				}
+				socket.close();
+			}
+		}
+		catch (IOException e) {
+			// server closed
+		}
+	}
+
+	private static void respond(OutputStream out, int status, String body) throws IOException {
+		byte[] content = body.getBytes(StandardCharsets.UTF_8);
+		out.write(("HTTP/1.1 " + status + " Status\r\nContent-Length: " + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+		out.write(content);
+		out.flush();
+	}
+
+	private List<String> requests(String prefix) {
+		return requests.stream().filter(r -> r.startsWith(prefix)).collect(toList());
+	}
+
+	private JsonNode createdContainer() throws IOException {
+		List<String> creates = requests("POST /v1.25/containers/create?name=app_redis_1 HTTP/1.1 ");
+		assertThat(creates.size(), is(1));
+		return MAPPER.readTree(creates.get(0).substring(creates.get(0).indexOf('{')));
+	}
+
+	private static List<String> texts(JsonNode array) {
+		List<String> result = new ArrayList<>();
+		array.forEach(node -> result.add(node.asText()));
+		return result;
+	}
+
+	private static String existingContainer(String configHash) {
+		return "[{\"Id\":\"existing\",\"State\":\"exited\",\"Labels\":{\"carnotzet.instance.id\":\"app\","
+				+ "\"carnotzet.module.service.id\":\"redis\",\"carnotzet.config.hash\":\"" + configHash + "\"}}]";
+	}
+
+	@Test
+	public void env_files_are_merged_in_order() throws IOException {
+		// When
+		new DockerEngineRuntime(carnotzet, "app", client, false).start();
+
+		// Then
+		List<String> expected = new ArrayList<>(Arrays.asList("A=1", "B=3", "C=x=y"));
+		if (System.getenv("PATH") != null) {
+			expected.add("PATH=" + System.getenv("PATH"));
+		}
+		assertThat(texts(createdContainer().path("Env")), is(expected));
+	}
+
+	@Test
+	public void containers_have_the_labels_and_aliases_of_the_docker_compose_runtime() throws IOException {
+		// When
+		new DockerEngineRuntime(carnotzet, "app", client, false).start();
+
+		// Then
+		JsonNode container = createdContainer();
+		assertThat(texts(container.path("NetworkingConfig").path("EndpointsConfig").path("app_carnotzet").path("Aliases")),
+				is(Arrays.asList("app.redis.docker", "app_redis.redis.docker", "cache", "redis.docker", "store")));
+		JsonNode labels = container.path("Labels");
+		assertThat(labels.path("team").asText(), is("core"));
+		assertThat(labels.path("com.dnsdock.alias").asText(), is("app.redis.docker,app_redis.redis.docker,cache,redis.docker,store"));
+		assertThat(labels.path("carnotzet.instance.id").asText(), is("app"));
+		assertThat(labels.path("carnotzet.module.name").asText(), is("redis"));
+		assertThat(labels.path("carnotzet.module.service.id").asText(), is("redis"));
+		assertThat(labels.path("carnotzet.top.level.module.name").asText(), is("app"));
+		assertThat(labels.path("com.docker.compose.project").asText(), is("app"));
+		assertThat(labels.path("com.docker.compose.service").asText(), is("redis"));
+		assertThat(labels.path("com.docker.compose.container-number").asText(), is("1"));
+		assertThat(labels.path("com.docker.compose.oneoff").asText(), is("False"));
+		assertThat(texts(container.path("HostConfig").path("ExtraHosts")), is(Collections.singletonList("host1:10.0.0.1")));
+
+		List<String> networks = requests("POST /v1.25/networks/create HTTP/1.1 ");
+		assertThat(networks.size(), is(1));
+		JsonNode network = MAPPER.readTree(networks.get(0).substring(networks.get(0).indexOf('{')));
+		assertThat(network.path("Name").asText(), is("app_carnotzet"));
+		assertThat(network.path("Labels").path("com.docker.compose.project").asText(), is("app"));
+		assertThat(network.path("Labels").path("com.docker.compose.network").asText(), is("carnotzet"));
+	}
+
+	@Test
+	public void exposed_ports_are_bound_to_the_host() throws IOException {
+		// When
+		new DockerEngineRuntime(carnotzet, "app", client, true).start();
+
+		// Then
+		JsonNode container = createdContainer();
+		assertThat(names(() -> container.path("ExposedPorts").fieldNames()), is(Arrays.asList("6379/tcp", "16379/tcp")));
+		JsonNode bindings = container.path("HostConfig").path("PortBindings");
+		assertThat(bindings.path("6379/tcp").get(0).path("HostPort").asText(), is("6380"));
+		// chosen by docker
+		assertThat(bindings.path("16379/tcp").get(0).path("HostPort").asText(), is(""));
+	}
+
+	@Test
+	public void ports_are_not_bound_when_not_exposing_ports() throws IOException {
+		// When
+		new DockerEngineRuntime(carnotzet, "app", client, false).start();
+
+		// Then
+		JsonNode container = createdContainer();
+		assertTrue(container.path("ExposedPorts").isMissingNode());
+		assertTrue(container.path("HostConfig").path("PortBindings").isMissingNode());
+	}
+
+	@Test
+	public void up_to_date_containers_are_started_again() throws IOException {
+		// Given
+		new DockerEngineRuntime(carnotzet, "app", client, false).start();
+		String configHash = createdContainer().path("Labels").path("carnotzet.config.hash").asText();
+		assertFalse(configHash.isEmpty());
+		containersJson.set(existingContainer(configHash));
+		requests.clear();
+
+		// When
+		new DockerEngineRuntime(carnotzet, "app", client, false).start();
+
+		// Then
+		assertThat(requests("POST /v1.25/containers/create").size(), is(0));
+		assertThat(requests("DELETE /v1.25/containers/").size(), is(0));
+		assertThat(requests("POST /v1.25/containers/existing/start ").size(), is(1));
+	}
+
+	@Test
+	public void outdated_containers_are_re_created() throws IOException {
+		// Given
+		containersJson.set(existingContainer("outdated"));
+
+		// When
+		new DockerEngineRuntime(carnotzet, "app", client, false).start();
+
+		// Then
+		assertThat(requests("DELETE /v1.25/containers/existing?force=1 ").size(), is(1));
+		createdContainer();
+		assertThat(requests("POST /v1.25/containers/created/start ").size(), is(1));
+	}
+
+	private static List<String> names(Iterable<String> values) {
+		List<String> result = new ArrayList<>();
+		values.forEach(result::add);
+		return result;
+	}
+
+}
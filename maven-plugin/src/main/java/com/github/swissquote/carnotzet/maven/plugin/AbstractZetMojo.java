@@ -3,7 +3,9 @@ package com.github.swissquote.carnotzet.maven.plugin;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.ServiceLoader;
@@ -20,19 +22,28 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuilder;
 import org.apache.maven.settings.Settings;
+import org.eclipse.aether.RepositorySystem;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 
 import com.github.swissquote.carnotzet.core.Carnotzet;
 import com.github.swissquote.carnotzet.core.CarnotzetConfig;
 import com.github.swissquote.carnotzet.core.CarnotzetExtension;
+import com.github.swissquote.carnotzet.core.docker.engine.DockerEngineClient;
+import com.github.swissquote.carnotzet.core.docker.registry.DockerRegistry;
+import com.github.swissquote.carnotzet.core.docker.registry.ImageMetadataCache;
+import com.github.swissquote.carnotzet.core.docker.registry.ImagePrefetcher;
 import com.github.swissquote.carnotzet.core.maven.CarnotzetModuleCoordinates;
 import com.github.swissquote.carnotzet.core.runtime.DefaultCommandRunner;
 import com.github.swissquote.carnotzet.core.runtime.api.ContainerOrchestrationRuntime;
+import com.github.swissquote.carnotzet.core.runtime.api.PullPolicy;
 import com.github.swissquote.carnotzet.core.runtime.log.LogListener;
 import com.github.swissquote.carnotzet.core.runtime.log.StdOutLogPrinter;
+import com.github.swissquote.carnotzet.maven.plugin.impl.ProjectDependencyGraphProvider;
 import com.github.swissquote.carnotzet.maven.plugin.impl.Utils;
 import com.github.swissquote.carnotzet.maven.plugin.spi.CarnotzetExtensionsFactory;
 import com.github.swissquote.carnotzet.runtime.docker.compose.DockerComposeRuntime;
+import com.github.swissquote.carnotzet.runtime.docker.compose.StartMode;
+import com.github.swissquote.carnotzet.runtime.docker.engine.DockerEngineRuntime;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import lombok.Getter;
@@ -69,10 +80,91 @@ public abstract class AbstractZetMojo extends AbstractMojo {
 	@Getter
 	private Boolean failOnDependencyCycle;
 
+	/**
+	 * Caches the result of the maven dependency resolution in ~/.carnotzet/resolution-cache, until a pom or jar file involved in
+	 * the resolution changes
+	 */
+	@Parameter(property = "resolution.cache", defaultValue = "true")
+	@Getter
+	private boolean resolutionCache;
+
+	/**
+	 * Computes the dependency tree by invoking maven in a separate process instead of using the dependencies of the project
+	 */
+	@Parameter(property = "resolution.fork", defaultValue = "false")
+	@Getter
+	private boolean forkMavenResolution;
+
+	/**
+	 * Only extracts again the resources of the modules whose jar file changed
+	 */
+	@Parameter(property = "resources.incremental", defaultValue = "true")
+	@Getter
+	private boolean incrementalResourcesExtraction;
+
+	/**
+	 * Maximum number of module jars extracted concurrently
+	 */
+	@Parameter(property = "resources.extraction.parallelism", defaultValue = "1")
+	@Getter
+	private int resourcesExtractionParallelism;
+
+	/**
+	 * Only extracts the resources used by carnotzet from the module jars
+	 */
+	@Parameter(property = "resources.selective", defaultValue = "false")
+	@Getter
+	private boolean selectiveResourcesExtraction;
+
+	/**
+	 * Uses hard links instead of copies for the resolved resources of the modules
+	 */
+	@Parameter(property = "resources.link", defaultValue = "false")
+	@Getter
+	private boolean linkResources;
+
 	@Parameter(property = "bindLocalPorts")
 	@Getter
 	private Boolean bindLocalPorts;
 
+	/**
+	 * How services are started : sequential (one docker-compose invocation per service), batch (a single invocation)
+	 * or waves (one invocation per group of services whose dependencies are already started)
+	 */
+	@Parameter(property = "start.mode", defaultValue = "sequential")
+	@Getter
+	private String startMode;
+
+	/**
+	 * Runtime managing the containers : docker-compose (generates a docker-compose.yml file and invokes docker-compose) or docker-engine
+	 * (calls the docker engine API directly)
+	 */
+	@Parameter(property = "runtime", defaultValue = "docker-compose")
+	@Getter
+	private String runtimeName;
+
+	/**
+	 * Pulls the missing images while the modules are resolved and their resources extracted, before starting the services
+	 */
+	@Parameter(property = "start.prefetch", defaultValue = "false")
+	@Getter
+	private boolean prefetchImages;
+
+	/**
+	 * Maximum number of images prefetched concurrently, also used when the docker-compose runtime pulls missing images itself
+	 */
+	@Parameter(property = "start.prefetch.parallelism", defaultValue = "4")
+	@Getter
+	private int prefetchParallelism;
+
+	/**
+	 * Persists the metadata of registry images in ~/.carnotzet/image-metadata, images referenced by digest are never fetched again
+	 * and tags are fetched again after 5 minutes
+	 */
+	@Parameter(property = "image.metadata.cache", defaultValue = "false")
+	@Getter
+	private boolean imageMetadataCache;
+
 	@Getter
 	@Setter
 	private Carnotzet carnotzet;
@@ -91,6 +183,9 @@ public abstract class AbstractZetMojo extends AbstractMojo {
 	@Component
 	private ProjectBuilder projectBuilder;
 
+	@Component
+	private RepositorySystem repositorySystem;
+
 	@Override
 	public void execute() throws MojoFailureException, MojoExecutionException {
 		SLF4JBridgeHandler.install();
@@ -112,25 +207,82 @@ public abstract class AbstractZetMojo extends AbstractMojo {
 			resourcesPath = Paths.get("/var/tmp/carnotzet_" + instanceId);
 		}
 
+		if (prefetchParallelism < 1) {
+			throw new MojoExecutionException("start.prefetch.parallelism must be greater than 0, got : " + prefetchParallelism);
+		}
+		if (resourcesExtractionParallelism < 1) {
+			throw new MojoExecutionException("resources.extraction.parallelism must be greater than 0, got : " + resourcesExtractionParallelism);
+		}
+
 		CarnotzetConfig config = CarnotzetConfig.builder()
 				.topLevelModuleId(coordinates)
 				.resourcesPath(resourcesPath)
 				.topLevelModuleResourcesPath(project.getBasedir().toPath().resolve("src/main/resources"))
 				.failOnDependencyCycle(failOnDependencyCycle)
+				.useResolutionCache(resolutionCache)
+				.forkMavenResolution(forkMavenResolution)
+				.incrementalResourcesExtraction(incrementalResourcesExtraction)
+				.resourcesExtractionParallelism(resourcesExtractionParallelism)
+				.selectiveResourcesExtraction(selectiveResourcesExtraction)
+				.linkResources(linkResources)
+				.dependencyGraphProvider(forkMavenResolution ? null : new ProjectDependencyGraphProvider(project, session, repositorySystem))
 				.extensions(runtimeExtensions)
 				.build();
 
+		if (imageMetadataCache) {
+			DockerRegistry.INSTANCE.setMetadataCache(
+					new ImageMetadataCache(ImageMetadataCache.DEFAULT_CACHE_FOLDER, ImageMetadataCache.DEFAULT_TTL));
+		}
+
 		carnotzet = new Carnotzet(config);
 		if (bindLocalPorts == null) {
 			bindLocalPorts = !SystemUtils.IS_OS_LINUX;
 		}
-		runtime = new DockerComposeRuntime(carnotzet, instanceId, DefaultCommandRunner.INSTANCE, bindLocalPorts);
+		ImagePrefetcher imagePrefetcher = null;
+		if ("docker-engine".equals(runtimeName)) {
+			DockerEngineClient engineClient = DockerEngineClient.fromEnv();
+			if (!engineClient.isAvailable()) {
+				throw new MojoExecutionException("The docker engine API is not reachable through [" + engineClient.getDockerHost()
+						+ "], check that the docker daemon is running and that DOCKER_HOST is correct, or use -Druntime=docker-compose");
+			}
+			runtime = new DockerEngineRuntime(carnotzet, instanceId, engineClient, bindLocalPorts);
+		} else if ("docker-compose".equals(runtimeName)) {
+			DockerComposeRuntime dockerComposeRuntime = new DockerComposeRuntime(carnotzet, instanceId, DefaultCommandRunner.INSTANCE, bindLocalPorts);
+			dockerComposeRuntime.setStartMode(parseStartMode());
+			dockerComposeRuntime.setImagePrefetchParallelism(prefetchParallelism);
+			if (prefetchImages && startsEnvironment()) {
+				// installed before anything resolves the modules, so that the images are pulled while they are resolved
+				imagePrefetcher = new ImagePrefetcher(PullPolicy.IF_LOCAL_IMAGE_ABSENT, prefetchParallelism);
+				carnotzet.setPredictedImageListener(imagePrefetcher);
+				dockerComposeRuntime.setImagePrefetcher(imagePrefetcher);
+			}
+			runtime = dockerComposeRuntime;
+		} else {
+			throw new MojoExecutionException("Unknown runtime : " + runtimeName + ", supported runtimes are [docker-compose, docker-engine]");
+		}
 
-		executeInternal();
+		try {
+			executeInternal();
+		}
+		finally {
+			if (imagePrefetcher != null) {
+				imagePrefetcher.close();
+			}
+		}
 
 		SLF4JBridgeHandler.uninstall();
 	}
 
+	private StartMode parseStartMode() throws MojoExecutionException {
+		try {
+			return StartMode.valueOf(startMode.trim().toUpperCase(Locale.ROOT));
+		}
+		catch (IllegalArgumentException e) {
+			throw new MojoExecutionException("Unknown start mode : " + startMode + ", supported modes are "
+					+ Arrays.toString(StartMode.values()).toLowerCase(Locale.ROOT), e);
+		}
+	}
+
 	protected List<CarnotzetExtension> findRuntimeExtensions() {
 		List<CarnotzetExtensionsFactory> factories = new ArrayList<>(0);
 		ServiceLoader.load(CarnotzetExtensionsFactory.class).iterator().forEachRemaining(factories::add);
@@ -153,6 +305,13 @@ public abstract class AbstractZetMojo extends AbstractMojo {
 
 	public abstract void executeInternal() throws MojoExecutionException, MojoFailureException;
 
+	/**
+	 * @return true if the goal starts all the services of the environment, their images are then prefetched with -Dstart.prefetch=true
+	 */
+	protected boolean startsEnvironment() {
+		return false;
+	}
+
 	public Runnable wrapWithLogFollowIfNeeded(Runnable block) {
 		if (follow) {
 			return () -> {
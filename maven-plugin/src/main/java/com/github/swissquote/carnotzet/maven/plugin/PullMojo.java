@@ -14,7 +14,8 @@ import lombok.Getter;
 /**
  * Pulls all images in the carnotzet from the docker image registry. <br>
  * use -Dpull.policy=... to pull only under certain conditions. <br>
- * supported policies are (always|ifNotPresent|ifNewer)
+ * supported policies are (always|ifNotPresent|ifNewer) <br>
+ * use -Dpull.parallelism=N to pull up to N images concurrently (defaults to 1)
  *
  */
 @Mojo(name = "pull", defaultPhase = LifecyclePhase.NONE, threadSafe = true, requiresDependencyResolution = ResolutionScope.COMPILE)
@@ -24,6 +25,10 @@ public class PullMojo extends AbstractZetMojo {
 	@Getter
 	private String imagePullPolicy;
 
+	@Parameter(defaultValue = "1", property = "pull.parallelism")
+	@Getter
+	private int pullParallelism;
+
 	@Override
 	public void executeInternal() throws MojoExecutionException, MojoFailureException {
 		PullPolicy policy = null;
@@ -45,7 +50,11 @@ public class PullMojo extends AbstractZetMojo {
 			}
 		}
 
-		getLog().info("Pulling images with policy : " + imagePullPolicy);
-		getRuntime().pull(policy);
+		if (pullParallelism < 1) {
+			throw new MojoExecutionException("pull.parallelism must be greater than 0, got : " + pullParallelism);
+		}
+
+		getLog().info("Pulling images with policy : " + imagePullPolicy + ", parallelism : " + pullParallelism);
+		getRuntime().pull(policy, pullParallelism);
 	}
 }
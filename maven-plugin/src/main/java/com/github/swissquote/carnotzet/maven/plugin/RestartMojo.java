@@ -18,6 +18,11 @@ public class RestartMojo extends AbstractZetMojo {
 		wrapWithLogFollowIfNeeded(command).run();
 	}
 
+	@Override
+	protected boolean startsEnvironment() {
+		return getService() == null;
+	}
+
 	private Runnable command = () -> {
 		if (getService() == null) {
 			getRuntime().stop();
@@ -19,4 +19,9 @@ public class RunMojo extends AbstractZetMojo {
 		Run.execute(getRuntime(), getCarnotzet(), getService());
 	}
 
+	@Override
+	protected boolean startsEnvironment() {
+		return getService() == null;
+	}
+
 }
@@ -1,28 +1,81 @@
 package com.github.swissquote.carnotzet.maven.plugin;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 
+import com.github.swissquote.carnotzet.core.CarnotzetModule;
+import com.github.swissquote.carnotzet.core.runtime.readiness.ReadinessReport;
+import com.github.swissquote.carnotzet.core.util.ConcurrentTasks;
+import com.github.swissquote.carnotzet.runtime.docker.compose.DockerComposeRuntime;
+
+import lombok.Getter;
+
 /**
  * Start a carnotzet (in background)<br>
- * if -Dservice=... is passed, ony the chose service will be started
+ * if -Dservice=... is passed, ony the chose service will be started<br>
+ * if -Dready.timeout=N is passed, waits at most N seconds until the services are ready according to their readiness probes. With
+ * -Dstart.mode=waves, each wave is started once the services of the previous wave are ready, waiting at most N seconds per wave
  */
 @Mojo(name = "start", defaultPhase = LifecyclePhase.NONE, threadSafe = true, requiresDependencyResolution = ResolutionScope.COMPILE)
 public class StartMojo extends AbstractZetMojo {
 
+	/**
+	 * Maximum time to wait for the services to be ready, in seconds. Defaults to 0 : the services are not awaited.
+	 */
+	@Parameter(property = "ready.timeout", defaultValue = "0")
+	@Getter
+	private int readyTimeout;
+
 	@Override
 	public void executeInternal() throws MojoExecutionException, MojoFailureException {
+		if (readyTimeout < 0) {
+			throw new MojoExecutionException("ready.timeout must not be negative, got : " + readyTimeout);
+		}
+		if (readyTimeout > 0 && getRuntime() instanceof DockerComposeRuntime) {
+			((DockerComposeRuntime) getRuntime()).setWaveReadinessCheck(this::awaitReady);
+		}
 		wrapWithLogFollowIfNeeded(command).run();
 	}
 
+	@Override
+	protected boolean startsEnvironment() {
+		return getService() == null;
+	}
+
 	private Runnable command = () -> {
 		if (getService() == null) {
 			getRuntime().start();
 		} else {
 			getRuntime().start(getService());
 		}
+		if (readyTimeout > 0) {
+			awaitReady();
+		}
 	};
+
+	private void awaitReady() {
+		Duration timeout = Duration.ofSeconds(readyTimeout);
+		ReadinessReport report = getService() == null ? getRuntime().awaitReady(timeout) : getRuntime().awaitReady(getService(), timeout);
+		report.getServices().forEach((service, time) -> getLog().info("Service [" + service + "] ready after [" + time.toMillis() + "ms]"));
+		getLog().info("All services ready after [" + report.getTotal().toMillis() + "ms]");
+	}
+
+	private void awaitReady(List<CarnotzetModule> wave) {
+		Duration timeout = Duration.ofSeconds(readyTimeout);
+		Map<String, Callable<ReadinessReport>> awaits = new LinkedHashMap<>();
+		wave.forEach(m -> awaits.put(m.getServiceId(), () -> getRuntime().awaitReady(m.getServiceId(), timeout)));
+		ConcurrentTasks.run(awaits, Math.max(1, awaits.size()), "carnotzet-wave-readiness-%d")
+				.getValuesOrThrow(failed -> "Services " + failed + " were not ready after [" + timeout.toMillis() + "ms]")
+				.forEach((service, report) -> getLog().info("Service [" + service + "] ready after [" + report.getTotal().toMillis() + "ms]"));
+	}
 }
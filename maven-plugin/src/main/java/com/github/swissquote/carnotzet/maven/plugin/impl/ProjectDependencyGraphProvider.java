@@ -0,0 +1,75 @@
+package com.github.swissquote.carnotzet.maven.plugin.impl;
+
+import java.nio.file.Path;
+
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.ArtifactTypeRegistry;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+
+import com.github.swissquote.carnotzet.core.CarnotzetDefinitionException;
+import com.github.swissquote.carnotzet.core.maven.AetherDependencyTreeResolver;
+import com.github.swissquote.carnotzet.core.maven.CarnotzetModuleCoordinates;
+import com.github.swissquote.carnotzet.core.maven.DependencyGraphProvider;
+import com.github.swissquote.carnotzet.core.maven.Node;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Computes the dependency tree of the current project with the repository system and session of the running maven build,
+ * so that carnotzet never has to invoke maven again.
+ */
+@RequiredArgsConstructor
+public class ProjectDependencyGraphProvider implements DependencyGraphProvider {
+
+	private final MavenProject project;
+
+	private final MavenSession session;
+
+	private final RepositorySystem repositorySystem;
+
+	@Override
+	public Node getDependencyTree(CarnotzetModuleCoordinates topLevelModuleId) {
+		if (!isProject(topLevelModuleId)) {
+			return null;
+		}
+		DefaultRepositorySystemSession repositorySession = new DefaultRepositorySystemSession(session.getRepositorySession());
+		repositorySession.setConfigProperty(ConflictResolver.CONFIG_PROP_VERBOSE, true);
+		ArtifactTypeRegistry types = repositorySession.getArtifactTypeRegistry();
+
+		// built from the project model rather than from the pom in the repository, the project may not be installed
+		CollectRequest request = new CollectRequest();
+		request.setRootArtifact(RepositoryUtils.toArtifact(project.getArtifact()));
+		request.setRepositories(project.getRemoteProjectRepositories());
+		project.getDependencies().forEach(d -> request.addDependency(RepositoryUtils.toDependency(d, types)));
+		DependencyManagement dependencyManagement = project.getDependencyManagement();
+		if (dependencyManagement != null) {
+			dependencyManagement.getDependencies().forEach(d -> request.addManagedDependency(RepositoryUtils.toDependency(d, types)));
+		}
+
+		try {
+			return AetherDependencyTreeResolver.toTree(repositorySystem.collectDependencies(repositorySession, request));
+		}
+		catch (DependencyCollectionException e) {
+			throw new CarnotzetDefinitionException("Could not resolve dependencies of [" + project.getId() + "]", e);
+		}
+	}
+
+	@Override
+	public Path getLocalRepositoryPath() {
+		return session.getRepositorySession().getLocalRepository().getBasedir().toPath();
+	}
+
+	private boolean isProject(CarnotzetModuleCoordinates id) {
+		return project.getGroupId().equals(id.getGroupId())
+				&& project.getArtifactId().equals(id.getArtifactId())
+				&& project.getVersion().equals(id.getVersion());
+	}
+
+}